@@ -0,0 +1,191 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.UserService;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.UserStorage;
+import ru.yandex.practicum.filmorate.storage.cache.CachedGenreStorage;
+import ru.yandex.practicum.filmorate.storage.dao.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.dao.GenreDbStorage;
+import ru.yandex.practicum.filmorate.storage.dao.UserDbStorage;
+import ru.yandex.practicum.filmorate.storage.inmemory.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.inmemory.InMemoryUserStorage;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Набор данных для бенчмарков: одни и те же пользователи, фильмы, лайки и дружбы (фиксированный seed)
+ * во встроенной H2 со схемой приложения или в хранилищах в памяти. Популярность фильмов скошена:
+ * младшие id получают больше лайков.
+ */
+final class Dataset implements AutoCloseable {
+    static final String DB = "db";
+    static final String MEMORY = "memory";
+
+    private static final String INSERT_USER = "INSERT INTO users (email, login, name, birthday) VALUES (?, ?, ?, ?)";
+    private static final String INSERT_FILM = "INSERT INTO films (name, description, releaseDate, duration, rating_id) " +
+            "VALUES (?, ?, ?, ?, ?)";
+    private static final String INSERT_FILM_GENRE = "INSERT INTO film_genre (film_id, genre_id) VALUES (?, ?)";
+    private static final String INSERT_LIKE = "INSERT INTO likes (film_id, user_id) VALUES (?, ?)";
+    private static final String INSERT_FRIEND = "INSERT INTO friends (user_id, friend_id, status) VALUES (?, ?, false)";
+    private static final int MPA_COUNT = 5;
+    private static final int GENRE_COUNT = 6;
+    private static final int SUGGESTION_MAX_EDGES = 200_000;
+    private static final long SUGGESTION_BUDGET_MS = 20;
+    private static final String[] SYLLABLES = {"ka", "lo", "mi", "ra", "te", "zu", "no", "ve", "si", "do"};
+    static final int WORD_COUNT = SYLLABLES.length * SYLLABLES.length * SYLLABLES.length;
+
+    final int users;
+    final int films;
+    final FilmStorage filmStorage;
+    final UserStorage userStorage;
+    final UserService userService;
+    // null для хранилищ в памяти
+    final JdbcTemplate jdbcTemplate;
+    private final HikariDataSource dataSource;
+
+    private Dataset(int users, int films, FilmStorage filmStorage, UserStorage userStorage,
+                    HikariDataSource dataSource) {
+        this.users = users;
+        this.films = films;
+        this.filmStorage = filmStorage;
+        this.userStorage = userStorage;
+        this.userService = new UserService(userStorage, SUGGESTION_MAX_EDGES, SUGGESTION_BUDGET_MS);
+        this.jdbcTemplate = dataSource == null ? null : new JdbcTemplate(dataSource);
+        this.dataSource = dataSource;
+    }
+
+    static Dataset create(String storage, int users, int films, int likesPerUser, int friendsPerUser)
+            throws Exception {
+        Random random = new Random(42);
+        List<long[]> likes = pairs(random, users, films, likesPerUser, true);
+        List<long[]> friends = pairs(random, users, users, friendsPerUser, false);
+        return switch (storage) {
+            case DB -> database(users, films, likes, friends);
+            case MEMORY -> memory(users, films, likes, friends);
+            default -> throw new IllegalArgumentException("Неизвестное хранилище: " + storage);
+        };
+    }
+
+    private static Dataset database(int users, int films, List<long[]> likes, List<long[]> friends) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl("jdbc:h2:mem:jmh-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        dataSource.setMaximumPoolSize(Runtime.getRuntime().availableProcessors());
+        new ResourceDatabasePopulator(new ClassPathResource("schema.sql"), new ClassPathResource("data.sql"))
+                .execute(dataSource);
+
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        List<Object[]> userRows = new ArrayList<>(users);
+        for (int i = 1; i <= users; i++) {
+            User user = user(i);
+            userRows.add(new Object[]{user.getEmail(), user.getLogin(), user.getName(), user.getBirthday()});
+        }
+        jdbcTemplate.batchUpdate(INSERT_USER, userRows);
+        List<Object[]> filmRows = new ArrayList<>(films);
+        List<Object[]> genreRows = new ArrayList<>(films);
+        for (int i = 1; i <= films; i++) {
+            Film film = film(i);
+            filmRows.add(new Object[]{film.getName(), film.getDescription(), film.getReleaseDate(),
+                    film.getDuration(), film.getMpa().getId()});
+            genreRows.add(new Object[]{i, i % GENRE_COUNT + 1});
+        }
+        jdbcTemplate.batchUpdate(INSERT_FILM, filmRows);
+        jdbcTemplate.batchUpdate(INSERT_FILM_GENRE, genreRows);
+        jdbcTemplate.batchUpdate(INSERT_LIKE, likes.stream().map(like -> new Object[]{like[1], like[0]}).toList());
+        jdbcTemplate.batchUpdate(INSERT_FRIEND, friends.stream().map(pair -> new Object[]{pair[0], pair[1]}).toList());
+
+        CachedGenreStorage genreStorage = new CachedGenreStorage(new GenreDbStorage(jdbcTemplate));
+        genreStorage.refresh();
+        UserDbStorage userStorage = new UserDbStorage(jdbcTemplate);
+        userStorage.init();
+        FilmDbStorage filmStorage = new FilmDbStorage(jdbcTemplate, userStorage, genreStorage);
+        filmStorage.init();
+        return new Dataset(users, films, filmStorage, userStorage, dataSource);
+    }
+
+    private static Dataset memory(int users, int films, List<long[]> likes, List<long[]> friends) throws Exception {
+        InMemoryUserStorage userStorage = new InMemoryUserStorage();
+        InMemoryFilmStorage filmStorage = new InMemoryFilmStorage(userStorage);
+        for (int i = 1; i <= users; i++) {
+            userStorage.create(user(i));
+        }
+        for (int i = 1; i <= films; i++) {
+            filmStorage.create(film(i));
+        }
+        for (long[] like : likes) {
+            filmStorage.addLike(like[1], like[0]);
+        }
+        for (long[] pair : friends) {
+            userStorage.addFriend(pair[0], pair[1]);
+        }
+        return new Dataset(users, films, filmStorage, userStorage, null);
+    }
+
+    /**
+     * Пары (id пользователя, id цели) без повторов, по perUser на пользователя.
+     */
+    private static List<long[]> pairs(Random random, int users, int targets, int perUser, boolean skewed) {
+        List<long[]> pairs = new ArrayList<>(users * perUser);
+        int count = Math.min(perUser, targets - 1);
+        for (long userId = 1; userId <= users; userId++) {
+            Set<Long> picked = new LinkedHashSet<>();
+            while (picked.size() < count) {
+                double r = random.nextDouble();
+                long target = (long) (targets * (skewed ? r * r : r)) + 1;
+                if (skewed || target != userId) {
+                    picked.add(target);
+                }
+            }
+            for (long target : picked) {
+                pairs.add(new long[]{userId, target});
+            }
+        }
+        return pairs;
+    }
+
+    private static User user(int n) {
+        return User.builder()
+                .email("user" + n + "@mail.ru")
+                .login("user" + n)
+                .name("User " + n)
+                .birthday(LocalDate.of(1970, 1, 1).plusDays(n % 15_000))
+                .build();
+    }
+
+    /**
+     * Слово из WORD_COUNT трёхсложных слов — словарь названий и описаний фильмов.
+     */
+    static String word(int k) {
+        int i = Math.floorMod(k, WORD_COUNT);
+        return SYLLABLES[i / 100] + SYLLABLES[i / 10 % 10] + SYLLABLES[i % 10];
+    }
+
+    static Film film(int n) {
+        return Film.builder()
+                .name("Film " + n + " " + word(n * 7))
+                .description("Description of film " + n + ": " + word(n * 13) + " " + word(n * 31) + " " + word(n * 97))
+                .releaseDate(LocalDate.of(1950, 1, 1).plusDays(n % 25_000))
+                .duration(60 + n % 120)
+                .mpa(new Mpa(n % MPA_COUNT + 1, null))
+                .build();
+    }
+
+    @Override
+    public void close() {
+        if (dataSource != null) {
+            dataSource.close();
+        }
+    }
+}
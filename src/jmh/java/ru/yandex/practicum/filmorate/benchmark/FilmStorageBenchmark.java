@@ -0,0 +1,88 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.model.Film;
+
+import java.util.Collection;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Горячие пути FilmStorage. addLike ставит лайк случайной паре; повторный лайк — no-op,
+ * поэтому объём данных за прогон растёт не больше чем на число вызовов.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FilmStorageBenchmark {
+
+    @Param({Dataset.DB, Dataset.MEMORY})
+    public String storage;
+
+    @Param({"1000", "10000"})
+    public int users;
+
+    @Param({"2000"})
+    public int films;
+
+    @Param({"20"})
+    public int likesPerUser;
+
+    private Dataset dataset;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        dataset = Dataset.create(storage, users, films, likesPerUser, 0);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        dataset.close();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public Collection<Film> findAll() {
+        return dataset.filmStorage.findAll();
+    }
+
+    @Benchmark
+    public Collection<Film> findPopularFilms() throws Exception {
+        return dataset.filmStorage.findPopularFilms(10);
+    }
+
+    @Benchmark
+    public Optional<Film> findFilmById() throws Exception {
+        return dataset.filmStorage.findFilmById(randomId(dataset.films));
+    }
+
+    @Benchmark
+    public Collection<Film> findRecommendations() {
+        return dataset.filmStorage.findRecommendations(randomId(dataset.users), 10);
+    }
+
+    @Benchmark
+    public void addLike() throws Exception {
+        dataset.filmStorage.addLike(randomId(dataset.films), randomId(dataset.users));
+    }
+
+    private static long randomId(int bound) {
+        return ThreadLocalRandom.current().nextLong(bound) + 1;
+    }
+}
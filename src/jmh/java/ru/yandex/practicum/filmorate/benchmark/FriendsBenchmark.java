@@ -0,0 +1,72 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.util.Collection;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Друзья пользователя из хранилища, общие друзья и рекомендации друзей через UserService.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FriendsBenchmark {
+
+    @Param({Dataset.DB, Dataset.MEMORY})
+    public String storage;
+
+    @Param({"1000", "10000"})
+    public int users;
+
+    @Param({"50", "200"})
+    public int friendsPerUser;
+
+    private Dataset dataset;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        dataset = Dataset.create(storage, users, 1, 0, friendsPerUser);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        dataset.close();
+    }
+
+    @Benchmark
+    public Collection<User> findAllFriends() throws Exception {
+        return dataset.userStorage.findAllFriends(randomId());
+    }
+
+    @Benchmark
+    public Collection<User> findMutualFriends() throws Exception {
+        return dataset.userService.findMutualFriends(randomId(), randomId());
+    }
+
+    @Benchmark
+    public Collection<User> findFriendSuggestions() throws Exception {
+        return dataset.userService.findFriendSuggestions(randomId(), 10);
+    }
+
+    private long randomId() {
+        return ThreadLocalRandom.current().nextLong(dataset.users) + 1;
+    }
+}
@@ -0,0 +1,117 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.zalando.logbook.BodyFilter;
+import org.zalando.logbook.Correlation;
+import org.zalando.logbook.HttpLogWriter;
+import org.zalando.logbook.Logbook;
+import org.zalando.logbook.Precorrelation;
+import org.zalando.logbook.core.BodyFilters;
+import org.zalando.logbook.core.DefaultSink;
+import org.zalando.logbook.json.JsonHttpLogFormatter;
+import org.zalando.logbook.servlet.LogbookFilter;
+import ru.yandex.practicum.filmorate.logging.AsyncHttpLogWriter;
+import ru.yandex.practicum.filmorate.logging.SampledHttpLogStrategy;
+import ru.yandex.practicum.filmorate.model.Film;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Накладные расходы Logbook на один запрос GET /films с ответом из films фильмов: без логирования (off),
+ * с настройками по умолчанию — тела целиком, запись в потоке запроса (full), и в режиме production
+ * (выборка 1%, тело ответа на GET не копируется, асинхронная запись). Строки лога форматируются в JSON и отбрасываются,
+ * поэтому измеряется работа Logbook, а не вывод. Аллокации — с -prof gc.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HttpLoggingBenchmark {
+    private static final HttpLogWriter DISCARD = new HttpLogWriter() {
+        @Override
+        public void write(Precorrelation precorrelation, String request) {
+        }
+
+        @Override
+        public void write(Correlation correlation, String response) {
+        }
+    };
+
+    @Param({"off", "full", "production"})
+    public String mode;
+
+    @Param({"10", "1000"})
+    public int films;
+
+    private byte[] body;
+    private LogbookFilter filter;
+    private AsyncHttpLogWriter asyncWriter;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        List<Film> payload = IntStream.rangeClosed(1, films).mapToObj(Dataset::film).toList();
+        body = new ObjectMapper().findAndRegisterModules().writeValueAsBytes(payload);
+        Logbook logbook = switch (mode) {
+            case "off" -> null;
+            case "full" -> Logbook.builder()
+                    .bodyFilter(BodyFilters.defaultValue())
+                    .sink(new DefaultSink(new JsonHttpLogFormatter(), DISCARD))
+                    .build();
+            case "production" -> {
+                asyncWriter = new AsyncHttpLogWriter(DISCARD, 1024);
+                yield Logbook.builder()
+                        .strategy(new SampledHttpLogStrategy(0.01, Map.of(), 400, List.of()))
+                        .bodyFilter(BodyFilter.merge(BodyFilters.defaultValue(), BodyFilters.truncate(2048)))
+                        .sink(new DefaultSink(new JsonHttpLogFormatter(), asyncWriter))
+                        .build();
+            }
+            default -> throw new IllegalArgumentException(mode);
+        };
+        filter = logbook == null ? null : new LogbookFilter(logbook);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        if (asyncWriter != null) {
+            asyncWriter.close();
+        }
+    }
+
+    @Benchmark
+    public MockHttpServletResponse getFilms() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/films");
+        request.addHeader("Accept", "application/json");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        FilterChain chain = (servletRequest, servletResponse) -> {
+            servletResponse.setContentType("application/json");
+            servletResponse.getOutputStream().write(body);
+        };
+        if (filter == null) {
+            chain.doFilter(request, response);
+        } else {
+            filter.doFilter(request, response, chain);
+        }
+        return response;
+    }
+}
@@ -0,0 +1,70 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.dao.FilmDbStorage;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Поиск по названию и описанию: обратный индекс FilmDbStorage против скана films через LIKE
+ * на той же встроенной H2. Запрос — префикс из четырёх букв случайного слова словаря Dataset.
+ * Скан не догружает жанры и лайки, поэтому его время — нижняя граница для поиска без индекса.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SearchBenchmark {
+    private static final String SCAN_QUERY = "SELECT * FROM films AS f JOIN rating AS r ON f.rating_id = r.rating_id" +
+            " WHERE LOWER(f.name) LIKE ? OR LOWER(f.description) LIKE ? LIMIT 10;";
+
+    @Param({"10000", "100000"})
+    public int films;
+
+    private Dataset dataset;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        dataset = Dataset.create(Dataset.DB, 100, films, 0, 0);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        dataset.close();
+    }
+
+    @Benchmark
+    public Collection<Film> searchIndex() {
+        return dataset.filmStorage.searchFilms(randomPrefix(), 10);
+    }
+
+    @Benchmark
+    public List<Film> searchSqlScan() {
+        String pattern = "%" + randomPrefix() + "%";
+        FilmDbStorage storage = (FilmDbStorage) dataset.filmStorage;
+        return dataset.jdbcTemplate.query(SCAN_QUERY, (resultSet, rowNum) -> storage.mapRowFilm(resultSet),
+                pattern, pattern);
+    }
+
+    private static String randomPrefix() {
+        return Dataset.word(ThreadLocalRandom.current().nextInt(Dataset.WORD_COUNT)).substring(0, 4);
+    }
+}
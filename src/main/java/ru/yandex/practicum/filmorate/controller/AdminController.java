@@ -0,0 +1,60 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.metrics.SqlStatementReport;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.GenreService;
+import ru.yandex.practicum.filmorate.service.MpaService;
+import ru.yandex.practicum.filmorate.storage.index.FilmSearchIndex;
+
+import java.util.List;
+import java.util.Map;
+
+@RequiredArgsConstructor
+@RestController
+@RequestMapping("/admin")
+public class AdminController {
+    private final FilmService filmService;
+    private final GenreService genreService;
+    private final MpaService mpaService;
+    private final SqlStatementReport sqlStatementReport;
+
+    @PostMapping("/reference/refresh")
+    public void refreshReferenceData() {
+        genreService.refresh();
+        mpaService.refresh();
+    }
+
+    @PostMapping("/popularity/rebuild")
+    public void rebuildPopularity() {
+        filmService.rebuildPopularity();
+    }
+
+    @GetMapping("/popularity/verify")
+    public Map<Long, Long> verifyPopularity() {
+        return filmService.verifyPopularity();
+    }
+
+    @GetMapping("/sql/top")
+    public List<SqlStatementReport.Summary> topStatements(@RequestParam(required = false) Integer limit)
+            throws ValidationException {
+        return sqlStatementReport.top(limit == null ? 20 : Pages.limit(limit));
+    }
+
+    @DeleteMapping("/sql/top")
+    public void resetStatements() {
+        sqlStatementReport.reset();
+    }
+
+    @GetMapping("/search/stats")
+    public FilmSearchIndex.Stats searchStats() {
+        return filmService.searchStats();
+    }
+}
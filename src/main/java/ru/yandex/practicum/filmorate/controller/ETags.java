@@ -0,0 +1,23 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+/**
+ * ETag из версий хранилищ. Версии живут в памяти и начинаются с нуля при каждом запуске,
+ * поэтому в тег входит метка запуска процесса — иначе после рестарта старые теги могли бы совпасть.
+ * Схема рассчитана на один экземпляр приложения: у нескольких экземпляров за балансировщиком разные метки
+ * и счётчики, и запись через один экземпляр не меняет версий другого.
+ */
+final class ETags {
+    private static final String EPOCH = Long.toString(System.currentTimeMillis(), 36);
+
+    private ETags() {
+    }
+
+    static String of(long... versions) {
+        return Arrays.stream(versions)
+                .mapToObj(Long::toString)
+                .collect(Collectors.joining("-", "\"" + EPOCH + "-", "\""));
+    }
+}
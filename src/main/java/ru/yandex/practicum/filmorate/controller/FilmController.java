@@ -3,14 +3,20 @@ package ru.yandex.practicum.filmorate.controller;
 import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.yandex.practicum.filmorate.exception.DuplicatedDataException;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.exception.ValidationException;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmImportResult;
 import ru.yandex.practicum.filmorate.service.FilmService;
 
 import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @RestController
@@ -18,27 +24,62 @@ import java.util.Optional;
 @Slf4j
 public class FilmController {
     private final FilmService filmService;
+    private final NdjsonStreams ndjsonStreams;
+    private final PopularFilmsCache popularFilmsCache;
 
     @Autowired
-    public FilmController(FilmService filmService) {
+    public FilmController(FilmService filmService, NdjsonStreams ndjsonStreams, PopularFilmsCache popularFilmsCache) {
         this.filmService = filmService;
+        this.ndjsonStreams = ndjsonStreams;
+        this.popularFilmsCache = popularFilmsCache;
     }
 
     @GetMapping
-    public Collection<Film> findAll() {
-        return filmService.findAll();
+    public ResponseEntity<Collection<Film>> findAll(@RequestParam(required = false) Long after,
+                                                    @RequestParam(required = false) Integer limit)
+            throws ValidationException {
+        if (after == null && limit == null) {
+            return ResponseEntity.ok(filmService.findAll());
+        }
+        int pageSize = Pages.limit(limit);
+        return Pages.of(filmService.findPage(after, pageSize), pageSize, Film::getId);
+    }
+
+    @GetMapping(params = "ids")
+    public ResponseEntity<Collection<Film>> findByIds(@RequestParam List<Long> ids) throws ValidationException {
+        List<Long> filmIds = MultiGet.ids(ids);
+        return MultiGet.of(filmIds, filmService.findFilmsByIds(filmIds), Film::getId);
+    }
+
+    @GetMapping(produces = NdjsonStreams.MEDIA_TYPE)
+    public ResponseEntity<StreamingResponseBody> streamAll() {
+        return ndjsonStreams.stream(filmService::streamAll);
     }
 
     @GetMapping("/{id}")
-    public Optional<Film> findFilmById(@PathVariable("id") Long filmId) throws NotFoundException {
+    public Optional<Film> findFilmById(@PathVariable("id") Long filmId, WebRequest request) throws NotFoundException {
+        if (request.checkNotModified(ETags.of(filmService.filmVersion(filmId)))) {
+            return null;
+        }
         return filmService.findFilmById(filmId);
     }
 
+    @GetMapping("/search")
+    public Collection<Film> search(@RequestParam String q,
+                                   @RequestParam(defaultValue = "10") Integer limit) throws ValidationException {
+        return filmService.searchFilms(q, Pages.limit(limit));
+    }
+
     @PostMapping
     public Film create(@Valid @RequestBody Film film) throws NotFoundException, ValidationException {
         return filmService.create(film);
     }
 
+    @PostMapping("/batch")
+    public List<FilmImportResult> createAll(@RequestBody List<Film> films) throws ValidationException {
+        return filmService.importFilms(films);
+    }
+
     @PutMapping
     public Film update(@Valid @RequestBody Film newFilm) throws ValidationException, NotFoundException {
         return filmService.update(newFilm);
@@ -55,7 +96,15 @@ public class FilmController {
     }
 
     @GetMapping("/popular")
-    public Collection<Film> findPopular(@RequestParam(name = "count", defaultValue = "10") Integer count) throws ValidationException {
-        return filmService.findPopularFilms(count);
+    public ResponseEntity<byte[]> findPopular(@RequestParam(name = "count", defaultValue = "10") Integer count,
+                                              @RequestParam(required = false) String window,
+                                              WebRequest request) throws ValidationException {
+        PopularFilmsCache.Entry popular = popularFilmsCache.get(Pages.bounded("count", count), Windows.parse(window));
+        if (request.checkNotModified(ETags.of(popular.version()))) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(popular.body());
     }
 }
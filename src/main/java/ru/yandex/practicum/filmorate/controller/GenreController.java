@@ -5,6 +5,7 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.model.Genre;
 import ru.yandex.practicum.filmorate.service.GenreService;
@@ -19,12 +20,18 @@ public class GenreController {
     private final GenreService genreService;
 
     @GetMapping
-    public Collection<Genre> findAllGenres() {
+    public Collection<Genre> findAllGenres(WebRequest request) {
+        if (request.checkNotModified(ETags.of(genreService.version()))) {
+            return null;
+        }
         return genreService.findAllGenres();
     }
 
     @GetMapping("/{id}")
-    public Optional<Genre> findGenreById(@PathVariable("id") int id) throws NotFoundException {
+    public Optional<Genre> findGenreById(@PathVariable("id") int id, WebRequest request) throws NotFoundException {
+        if (request.checkNotModified(ETags.of(genreService.version()))) {
+            return null;
+        }
         return genreService.findGenreById(id);
     }
 }
\ No newline at end of file
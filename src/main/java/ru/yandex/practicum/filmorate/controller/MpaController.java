@@ -5,6 +5,7 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.model.Mpa;
 import ru.yandex.practicum.filmorate.service.MpaService;
@@ -19,12 +20,18 @@ public class MpaController {
     private final MpaService mpaService;
 
     @GetMapping
-    public List<Mpa> findAllMpa() {
+    public List<Mpa> findAllMpa(WebRequest request) {
+        if (request.checkNotModified(ETags.of(mpaService.version()))) {
+            return null;
+        }
         return mpaService.findAllMpa();
     }
 
     @GetMapping("/{id}")
-    public Optional<Mpa> findMpaById(@PathVariable("id") int id) throws NotFoundException {
+    public Optional<Mpa> findMpaById(@PathVariable("id") int id, WebRequest request) throws NotFoundException {
+        if (request.checkNotModified(ETags.of(mpaService.version()))) {
+            return null;
+        }
         return mpaService.findMpaById(id);
     }
 }
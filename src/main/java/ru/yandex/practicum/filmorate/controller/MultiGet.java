@@ -0,0 +1,50 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import org.springframework.http.ResponseEntity;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Выборка по списку id (?ids=1,2,3): результат в порядке запроса без повторов,
+ * id, которых нет в хранилище, перечисляются в заголовке X-Missing-Ids.
+ */
+final class MultiGet {
+    static final String MISSING_IDS_HEADER = "X-Missing-Ids";
+    private static final int MAX_IDS = 500;
+
+    private MultiGet() {
+    }
+
+    static List<Long> ids(List<Long> ids) throws ValidationException {
+        Set<Long> distinct = new LinkedHashSet<>(ids);
+        distinct.remove(null);
+        if (distinct.isEmpty()) {
+            throw new ValidationException("Должен быть указан хотя бы один id");
+        }
+        if (distinct.size() > MAX_IDS) {
+            throw new ValidationException("За один запрос можно получить не более " + MAX_IDS + " записей");
+        }
+        return new ArrayList<>(distinct);
+    }
+
+    static <T> ResponseEntity<Collection<T>> of(List<Long> ids, List<T> found, Function<T, Long> idOf) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (found.size() < ids.size()) {
+            Set<Long> foundIds = found.stream().map(idOf).collect(Collectors.toCollection(HashSet::new));
+            response.header(MISSING_IDS_HEADER, ids.stream()
+                    .filter(id -> !foundIds.contains(id))
+                    .map(Objects::toString)
+                    .collect(Collectors.joining(",")));
+        }
+        return response.body(found);
+    }
+}
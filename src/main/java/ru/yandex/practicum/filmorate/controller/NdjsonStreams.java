@@ -0,0 +1,53 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.yandex.practicum.filmorate.jdbc.DataSourceRoute;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+
+/**
+ * Выгрузка в формате NDJSON: каждая запись пишется в ответ отдельной строкой сразу после чтения из хранилища.
+ * Тело пишется уже в асинхронном потоке, поэтому закрепление за основной БД переносится в него из потока запроса.
+ */
+@Component
+@RequiredArgsConstructor
+class NdjsonStreams {
+    static final String MEDIA_TYPE = "application/x-ndjson";
+
+    private final ObjectMapper objectMapper;
+
+    <T> ResponseEntity<StreamingResponseBody> stream(Consumer<Consumer<T>> source) {
+        ObjectWriter writer = objectMapper.writer();
+        boolean pinnedToPrimary = DataSourceRoute.isPinnedToPrimary();
+        StreamingResponseBody body = out -> {
+            boolean previous = DataSourceRoute.isPinnedToPrimary();
+            DataSourceRoute.pinToPrimary(pinnedToPrimary);
+            try {
+                source.accept(record -> writeLine(writer, out, record));
+            } finally {
+                DataSourceRoute.pinToPrimary(previous);
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(MEDIA_TYPE))
+                .body(body);
+    }
+
+    private void writeLine(ObjectWriter writer, OutputStream out, Object record) {
+        try {
+            out.write(writer.writeValueAsBytes(record));
+            out.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import org.springframework.http.ResponseEntity;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Постраничная выдача по курсору: клиент передаёт ?after=&lt;id&gt;&amp;limit=,
+ * id последнего элемента полной страницы возвращается в заголовке X-Next-Cursor.
+ */
+final class Pages {
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    private static final int DEFAULT_LIMIT = 100;
+    private static final int MAX_LIMIT = 1000;
+
+    private Pages() {
+    }
+
+    static int limit(Integer limit) throws ValidationException {
+        if (limit == null) {
+            return DEFAULT_LIMIT;
+        }
+        return bounded("limit", limit);
+    }
+
+    /**
+     * Проверяет размер выдачи вне постраничных списков (например, count у популярных фильмов) на тот же предел,
+     * называя в ошибке сам параметр.
+     */
+    static int bounded(String parameter, int value) throws ValidationException {
+        if (value <= 0 || value > MAX_LIMIT) {
+            throw new ValidationException(parameter + " должен быть от 1 до " + MAX_LIMIT);
+        }
+        return value;
+    }
+
+    static <T> ResponseEntity<Collection<T>> of(List<T> page, int limit, Function<T, Long> idOf) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.size() == limit) {
+            response.header(NEXT_CURSOR_HEADER, String.valueOf(idOf.apply(page.get(page.size() - 1))));
+        }
+        return response.body(page);
+    }
+}
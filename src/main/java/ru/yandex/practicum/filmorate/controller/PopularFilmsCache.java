@@ -0,0 +1,91 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.exception.InternalServerException;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.service.FilmService;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Готовый JSON для GET /films/popular по каждой паре count и window. Запись действительна, пока не изменилась
+ * версия каталога: лайки и правки фильмов увеличивают её в хранилище, так что отдельная инвалидация не нужна.
+ * Если задан filmorate.popular.cache.max-stale-ms, устаревшая запись отдаётся, пока не станет старше этого срока.
+ * Кэшируются только count до max-count и окна из {@link #CACHED_WINDOWS}, поэтому записей не больше
+ * max-count × 4; остальные запросы строятся заново.
+ */
+@Component
+class PopularFilmsCache {
+    static final Set<Duration> CACHED_WINDOWS = Set.of(Duration.ofHours(1), Duration.ofDays(1), Duration.ofDays(7));
+
+    private final FilmService filmService;
+    private final ObjectWriter writer;
+    private final long maxStaleNanos;
+    private final int maxCount;
+    private final Counter hitCounter;
+    private final Counter missCounter;
+    private final Map<Key, Entry> entries = new ConcurrentHashMap<>();
+
+    PopularFilmsCache(FilmService filmService, ObjectMapper objectMapper, MeterRegistry meterRegistry,
+                      @Value("${filmorate.popular.cache.max-stale-ms:0}") long maxStaleMs,
+                      @Value("${filmorate.popular.cache.max-count:100}") int maxCount) {
+        this.filmService = filmService;
+        this.writer = objectMapper.writer();
+        this.maxStaleNanos = TimeUnit.MILLISECONDS.toNanos(maxStaleMs);
+        this.maxCount = maxCount;
+        this.hitCounter = Counter.builder("filmorate.popular.cache").tag("result", "hit").register(meterRegistry);
+        this.missCounter = Counter.builder("filmorate.popular.cache").tag("result", "miss").register(meterRegistry);
+    }
+
+    /**
+     * Версия в ответе соответствует телу, а не текущему состоянию каталога, — по ней строится ETag.
+     */
+    Entry get(Integer count, Duration window) throws ValidationException {
+        long[] version = filmService.popularVersion(window);
+        long now = System.nanoTime();
+        Key key = new Key(count, window);
+        Entry entry = entries.get(key);
+        if (entry != null && (Arrays.equals(entry.version(), version) || now - entry.createdAt() < maxStaleNanos)) {
+            hitCounter.increment();
+            return entry;
+        }
+        missCounter.increment();
+        // версия прочитана до запроса: если каталог изменится во время построения, запись просто устареет
+        Entry built = new Entry(version, now, serialize(count, window));
+        if (isCached(count, window)) {
+            entries.put(key, built);
+        }
+        return built;
+    }
+
+    private boolean isCached(Integer count, Duration window) {
+        return count != null && count <= maxCount && (window == null || CACHED_WINDOWS.contains(window));
+    }
+
+    private byte[] serialize(Integer count, Duration window) throws ValidationException {
+        try {
+            return writer.writeValueAsBytes(window == null
+                    ? filmService.findPopularFilms(count)
+                    : filmService.findTrendingFilms(count, window));
+        } catch (JsonProcessingException e) {
+            throw new InternalServerException("Не удалось сериализовать популярные фильмы");
+        }
+    }
+
+    private record Key(Integer count, Duration window) {
+    }
+
+    record Entry(long[] version, long createdAt, byte[] body) {
+    }
+}
@@ -4,14 +4,19 @@ import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.yandex.practicum.filmorate.exception.DuplicatedDataException;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.FilmService;
 import ru.yandex.practicum.filmorate.service.UserService;
 
 import java.util.Collection;
+import java.util.List;
 
 @RestController
 @RequestMapping("/users")
@@ -20,15 +25,36 @@ public class UserController {
 
 
     private final UserService userService;
+    private final FilmService filmService;
+    private final NdjsonStreams ndjsonStreams;
 
     @Autowired
-    public UserController(UserService userService) {
+    public UserController(UserService userService, FilmService filmService, NdjsonStreams ndjsonStreams) {
         this.userService = userService;
+        this.filmService = filmService;
+        this.ndjsonStreams = ndjsonStreams;
     }
 
     @GetMapping
-    public Collection<User> findAll() {
-        return userService.findAll();
+    public ResponseEntity<Collection<User>> findAll(@RequestParam(required = false) Long after,
+                                                    @RequestParam(required = false) Integer limit)
+            throws ValidationException {
+        if (after == null && limit == null) {
+            return ResponseEntity.ok(userService.findAll());
+        }
+        int pageSize = Pages.limit(limit);
+        return Pages.of(userService.findPage(after, pageSize), pageSize, User::getId);
+    }
+
+    @GetMapping(params = "ids")
+    public ResponseEntity<Collection<User>> findByIds(@RequestParam List<Long> ids) throws ValidationException {
+        List<Long> userIds = MultiGet.ids(ids);
+        return MultiGet.of(userIds, userService.findUsersByIds(userIds), User::getId);
+    }
+
+    @GetMapping(produces = NdjsonStreams.MEDIA_TYPE)
+    public ResponseEntity<StreamingResponseBody> streamAll() {
+        return ndjsonStreams.stream(userService::streamAll);
     }
 
     @PostMapping
@@ -56,8 +82,29 @@ public class UserController {
     }
 
     @GetMapping("/{id}/friends")
-    public Collection<User> findFriends(@PathVariable Long id) throws NotFoundException {
-        return userService.findAllFriends(id);
+    public ResponseEntity<Collection<User>> findFriends(@PathVariable Long id,
+                                                        @RequestParam(required = false) Long after,
+                                                        @RequestParam(required = false) Integer limit)
+            throws NotFoundException, ValidationException {
+        if (after == null && limit == null) {
+            return ResponseEntity.ok(userService.findAllFriends(id));
+        }
+        int pageSize = Pages.limit(limit);
+        return Pages.of(userService.findFriendsPage(id, after, pageSize), pageSize, User::getId);
+    }
+
+    @GetMapping("/{id}/friends/suggestions")
+    public Collection<User> findFriendSuggestions(@PathVariable Long id,
+                                                  @RequestParam(defaultValue = "10") Integer limit)
+            throws NotFoundException, ValidationException {
+        return userService.findFriendSuggestions(id, Pages.limit(limit));
+    }
+
+    @GetMapping("/{id}/recommendations")
+    public Collection<Film> findRecommendations(@PathVariable Long id,
+                                                @RequestParam(defaultValue = "10") Integer limit)
+            throws NotFoundException, ValidationException {
+        return filmService.findRecommendations(id, Pages.limit(limit));
     }
 
     @GetMapping("/{id}/friends/common/{otherId}")
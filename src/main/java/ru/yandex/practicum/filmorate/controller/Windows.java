@@ -0,0 +1,34 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.storage.index.TrendingIndex;
+
+import java.time.Duration;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Окно для /films/popular?window=: целое число часов или дней, например 24h или 7d, не длиннее недели.
+ */
+final class Windows {
+    private static final Pattern WINDOW = Pattern.compile("(\\d{1,4})([hd])");
+
+    private Windows() {
+    }
+
+    static Duration parse(String window) throws ValidationException {
+        if (window == null) {
+            return null;
+        }
+        Matcher matcher = WINDOW.matcher(window);
+        if (!matcher.matches()) {
+            throw new ValidationException("window задаётся в часах или днях, например 24h или 7d");
+        }
+        long amount = Long.parseLong(matcher.group(1));
+        Duration duration = "h".equals(matcher.group(2)) ? Duration.ofHours(amount) : Duration.ofDays(amount);
+        if (duration.isZero() || duration.compareTo(TrendingIndex.MAX_WINDOW) > 0) {
+            throw new ValidationException("window должно быть от 1h до 7d");
+        }
+        return duration;
+    }
+}
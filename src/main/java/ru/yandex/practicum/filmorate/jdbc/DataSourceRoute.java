@@ -0,0 +1,51 @@
+package ru.yandex.practicum.filmorate.jdbc;
+
+/**
+ * Куда {@link ReadWriteRoutingDataSource} отдаёт соединение в текущем потоке. По умолчанию — в основную БД;
+ * на реплику только внутри {@link ReplicaRead}-метода и только если поток не закреплён за основной БД.
+ */
+public enum DataSourceRoute {
+    PRIMARY,
+    REPLICA;
+
+    private static final ThreadLocal<DataSourceRoute> requested = new ThreadLocal<>();
+    private static final ThreadLocal<Boolean> pinned = new ThreadLocal<>();
+
+    public static DataSourceRoute current() {
+        if (requested.get() != REPLICA || Boolean.TRUE.equals(pinned.get())) {
+            return PRIMARY;
+        }
+        return REPLICA;
+    }
+
+    /**
+     * Запрашивает маршрут и возвращает прежний, чтобы вложенные вызовы могли его восстановить.
+     */
+    public static DataSourceRoute use(DataSourceRoute route) {
+        DataSourceRoute previous = requested.get();
+        if (route == null || route == PRIMARY) {
+            requested.remove();
+        } else {
+            requested.set(route);
+        }
+        return previous == null ? PRIMARY : previous;
+    }
+
+    /**
+     * Закрепляет поток за основной БД независимо от {@link ReplicaRead} — для записи и чтения своих записей.
+     */
+    public static void pinToPrimary(boolean pin) {
+        if (pin) {
+            pinned.set(Boolean.TRUE);
+        } else {
+            pinned.remove();
+        }
+    }
+
+    /**
+     * Закреплён ли поток за основной БД — чтобы перенести закрепление в поток, который допишет ответ асинхронно.
+     */
+    public static boolean isPinnedToPrimary() {
+        return Boolean.TRUE.equals(pinned.get());
+    }
+}
@@ -0,0 +1,196 @@
+package ru.yandex.practicum.filmorate.jdbc;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * DataSource, который оборачивает соединения и запросы прокси и сообщает слушателям о каждом
+ * выполнении (execute*, executeBatch — один вызов на пакет) вместе с параметрами и числом строк.
+ * unwrap отдаёт исходный пул.
+ */
+public class ObservedDataSource extends DelegatingDataSource {
+    private final Supplier<List<StatementListener>> listeners;
+
+    public ObservedDataSource(DataSource target, Supplier<List<StatementListener>> listeners) {
+        super(target);
+        this.listeners = listeners;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return observe(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return observe(super.getConnection(username, password));
+    }
+
+    private Connection observe(Connection connection) {
+        return proxy(Connection.class, connection, (proxy, method, args) -> {
+            Object result = invoke(connection, method, args);
+            if (result instanceof Statement statement && method.getName().startsWith("prepare")) {
+                return observe(statement, (String) args[0]);
+            }
+            if (result instanceof Statement statement) {
+                return observe(statement, null);
+            }
+            return result;
+        });
+    }
+
+    private Statement observe(Statement statement, String preparedSql) {
+        Class<? extends Statement> type = statement instanceof CallableStatement ? CallableStatement.class
+                : statement instanceof PreparedStatement ? PreparedStatement.class : Statement.class;
+        Bindings bindings = new Bindings();
+        return proxy(type, statement, (proxy, method, args) -> {
+            String name = method.getName();
+            if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer index
+                    && statement instanceof PreparedStatement) {
+                bindings.set(index, name.equals("setNull") ? null : args[1]);
+            } else if (name.equals("clearParameters")) {
+                bindings.clear();
+            } else if (name.equals("addBatch")) {
+                bindings.batchSize++;
+            } else if (name.equals("clearBatch")) {
+                bindings.batchSize = 0;
+            } else if (name.equals("close")) {
+                bindings.reportPendingQuery();
+            }
+            if (!name.startsWith("execute")) {
+                return invoke(statement, method, args);
+            }
+            String sql = args != null && args.length > 0 && args[0] instanceof String text ? text : preparedSql;
+            int batchSize = name.startsWith("executeBatch") || name.startsWith("executeLargeBatch")
+                    ? bindings.batchSize : 0;
+            long start = System.nanoTime();
+            Object result;
+            try {
+                result = invoke(statement, method, args);
+            } catch (Throwable e) {
+                notifyListeners(bindings.execution(sql, System.nanoTime() - start, -1, batchSize, e));
+                throw e;
+            } finally {
+                if (batchSize > 0) {
+                    bindings.batchSize = 0;
+                }
+            }
+            StatementExecution execution = bindings.execution(sql, System.nanoTime() - start,
+                    rows(statement, result), batchSize, null);
+            if (result instanceof ResultSet resultSet) {
+                return bindings.countRows(resultSet, execution, start);
+            }
+            notifyListeners(execution);
+            return result;
+        });
+    }
+
+    private static long rows(Statement statement, Object result) throws SQLException {
+        if (result instanceof Integer count) {
+            return count;
+        }
+        if (result instanceof Long count) {
+            return count;
+        }
+        if (result instanceof int[] counts) {
+            return Arrays.stream(counts).filter(count -> count >= 0).asLongStream().sum();
+        }
+        if (result instanceof long[] counts) {
+            return Arrays.stream(counts).filter(count -> count >= 0).sum();
+        }
+        if (Boolean.FALSE.equals(result)) {
+            return statement.getUpdateCount();
+        }
+        return result instanceof ResultSet ? 0 : -1;
+    }
+
+    private void notifyListeners(StatementExecution execution) {
+        for (StatementListener listener : listeners.get()) {
+            listener.afterExecute(execution);
+        }
+    }
+
+    /**
+     * Параметры и пакет одного оборачиваемого Statement. Запрос с ResultSet не сообщается слушателям,
+     * пока ResultSet (или сам Statement) не закрыт — до этого неизвестно число строк; время такого запроса
+     * считается от execute до закрытия, то есть вместе с чтением строк.
+     */
+    private final class Bindings {
+        private Object[] values = new Object[0];
+        private int count;
+        private int batchSize;
+        private StatementExecution pendingQuery;
+        private long pendingStart;
+        private long pendingRows;
+
+        void set(int index, Object value) {
+            if (index > values.length) {
+                values = Arrays.copyOf(values, Math.max(index, values.length * 2));
+            }
+            values[index - 1] = value;
+            count = Math.max(count, index);
+        }
+
+        void clear() {
+            Arrays.fill(values, null);
+            count = 0;
+        }
+
+        StatementExecution execution(String sql, long nanos, long rows, int batchSize, Throwable error) {
+            return new StatementExecution(sql, nanos, rows, Arrays.asList(Arrays.copyOf(values, count)),
+                    batchSize, error);
+        }
+
+        ResultSet countRows(ResultSet resultSet, StatementExecution execution, long start) {
+            reportPendingQuery();
+            pendingQuery = execution;
+            pendingStart = start;
+            pendingRows = 0;
+            return proxy(ResultSet.class, resultSet, (proxy, method, args) -> {
+                Object result = invoke(resultSet, method, args);
+                if (method.getName().equals("next") && Boolean.TRUE.equals(result) && pendingQuery == execution) {
+                    pendingRows++;
+                } else if (method.getName().equals("close") && pendingQuery == execution) {
+                    reportPendingQuery();
+                }
+                return result;
+            });
+        }
+
+        void reportPendingQuery() {
+            StatementExecution execution = pendingQuery;
+            if (execution != null) {
+                pendingQuery = null;
+                notifyListeners(new StatementExecution(execution.sql(), System.nanoTime() - pendingStart, pendingRows,
+                        execution.parameters(), execution.batchSize(), null));
+            }
+        }
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<? extends T> type, T target, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(ObservedDataSource.class.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+}
@@ -0,0 +1,41 @@
+package ru.yandex.practicum.filmorate.jdbc;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+/**
+ * Оборачивает DataSource приложения в {@link ObservedDataSource}. Слушатели берутся из контекста
+ * лениво, при первом запросе, чтобы не тянуть их зависимости в фазу пост-обработки бинов.
+ * {@link ReadWriteRoutingDataSource} не оборачивается: его пулы уже обёрнуты, иначе запрос считался бы дважды.
+ */
+@Component
+public class ObservedDataSourcePostProcessor implements BeanPostProcessor {
+    private final ObjectProvider<StatementListener> listenerProvider;
+    private volatile List<StatementListener> listeners;
+
+    public ObservedDataSourcePostProcessor(ObjectProvider<StatementListener> listenerProvider) {
+        this.listenerProvider = listenerProvider;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof DataSource dataSource && !(bean instanceof ObservedDataSource)
+                && !(bean instanceof ReadWriteRoutingDataSource)) {
+            return new ObservedDataSource(dataSource, this::listeners);
+        }
+        return bean;
+    }
+
+    private List<StatementListener> listeners() {
+        List<StatementListener> current = listeners;
+        if (current == null) {
+            current = listenerProvider.orderedStream().toList();
+            listeners = current;
+        }
+        return current;
+    }
+}
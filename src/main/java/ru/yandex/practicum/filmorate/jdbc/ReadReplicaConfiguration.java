@@ -0,0 +1,58 @@
+package ru.yandex.practicum.filmorate.jdbc;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.util.StringUtils;
+
+import javax.sql.DataSource;
+
+/**
+ * Два пула вместо одного, если задан адрес реплики: основной — из spring.datasource.*,
+ * реплика — из filmorate.datasource.replica.* (логин и пароль по умолчанию те же). Приложение получает
+ * {@link ReadWriteRoutingDataSource}, поэтому JdbcTemplate, транзакции и инициализация схемы работают как раньше.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(name = ReadReplicaConfiguration.REPLICA_URL_PROPERTY)
+public class ReadReplicaConfiguration {
+    static final String REPLICA_URL_PROPERTY = "filmorate.datasource.replica.url";
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource primary = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        primary.setPoolName("primary");
+        return primary;
+    }
+
+    @Bean
+    @ConfigurationProperties("filmorate.datasource.replica.hikari")
+    public HikariDataSource replicaDataSource(DataSourceProperties properties,
+                                              @Value("${" + REPLICA_URL_PROPERTY + "}") String url,
+                                              @Value("${filmorate.datasource.replica.username:}") String username,
+                                              @Value("${filmorate.datasource.replica.password:}") String password) {
+        HikariDataSource replica = properties.initializeDataSourceBuilder().type(HikariDataSource.class)
+                .url(url)
+                .build();
+        if (StringUtils.hasText(username)) {
+            replica.setUsername(username);
+            replica.setPassword(password);
+        }
+        replica.setPoolName("replica");
+        replica.setReadOnly(true);
+        return replica;
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primary,
+                                 @Qualifier("replicaDataSource") DataSource replica) {
+        return new ReadWriteRoutingDataSource(primary, replica);
+    }
+}
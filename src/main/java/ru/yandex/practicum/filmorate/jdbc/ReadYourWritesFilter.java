@@ -0,0 +1,69 @@
+package ru.yandex.practicum.filmorate.jdbc;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Set;
+
+/**
+ * Read-your-writes при чтении с реплики: изменяющий запрос целиком идёт в основную БД и ставит клиенту cookie
+ * со временем окончания окна; пока окно не истекло, чтения этого клиента тоже идут в основную БД,
+ * а не на реплику, которая могла ещё не получить его изменения.
+ */
+@Component
+@ConditionalOnProperty(name = ReadReplicaConfiguration.REPLICA_URL_PROPERTY)
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+    static final String COOKIE_NAME = "filmorate-primary-until";
+    private static final Set<String> SAFE_METHODS = Set.of("GET", "HEAD", "OPTIONS");
+
+    private final long windowMs;
+
+    public ReadYourWritesFilter(@Value("${filmorate.datasource.replica.read-your-writes-ms:2000}") long windowMs) {
+        this.windowMs = windowMs;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        long now = System.currentTimeMillis();
+        boolean mutating = !SAFE_METHODS.contains(request.getMethod());
+        if (mutating && windowMs > 0) {
+            Cookie cookie = new Cookie(COOKIE_NAME, String.valueOf(now + windowMs));
+            cookie.setPath("/");
+            cookie.setHttpOnly(true);
+            cookie.setMaxAge((int) Math.max(1, (windowMs + 999) / 1000));
+            response.addCookie(cookie);
+        }
+        DataSourceRoute.pinToPrimary(mutating || now < primaryUntil(request));
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            DataSourceRoute.pinToPrimary(false);
+        }
+    }
+
+    private static long primaryUntil(HttpServletRequest request) {
+        Cookie[] cookies = request.getCookies();
+        if (cookies == null) {
+            return 0;
+        }
+        for (Cookie cookie : cookies) {
+            if (COOKIE_NAME.equals(cookie.getName())) {
+                try {
+                    return Long.parseLong(cookie.getValue());
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,16 @@
+package ru.yandex.practicum.filmorate.jdbc;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Метод хранилища только читает и может выполняться на реплике, если она настроена
+ * (filmorate.datasource.replica.url). Внутри уже открытой транзакции и в окне read-your-writes
+ * запросы всё равно идут в основную БД.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ReplicaRead {
+}
@@ -0,0 +1,34 @@
+package ru.yandex.practicum.filmorate.jdbc;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Отправляет {@link ReplicaRead}-методы на реплику. Стоит снаружи транзакционного прокси, поэтому
+ * транзакция readOnly-метода открывается уже на реплике; вызов внутри чужой транзакции маршрут не меняет.
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@ConditionalOnProperty(name = ReadReplicaConfiguration.REPLICA_URL_PROPERTY)
+public class ReplicaReadAspect {
+
+    @Around("@annotation(ru.yandex.practicum.filmorate.jdbc.ReplicaRead)")
+    public Object route(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return joinPoint.proceed();
+        }
+        DataSourceRoute previous = DataSourceRoute.use(DataSourceRoute.REPLICA);
+        try {
+            return joinPoint.proceed();
+        } finally {
+            DataSourceRoute.use(previous);
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package ru.yandex.practicum.filmorate.jdbc;
+
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * СУБД за {@link JdbcTemplate}. Нужна там, где переносимого SQL нет — например, для вставки «если ещё нет»:
+ * в PostgreSQL это INSERT … ON CONFLICT DO NOTHING, в H2 — MERGE … WHEN NOT MATCHED. Любая другая СУБД
+ * считается совместимой с H2.
+ */
+public enum SqlDialect {
+    H2,
+    POSTGRESQL;
+
+    public static SqlDialect of(JdbcTemplate jdbcTemplate) {
+        String product = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                connection.getMetaData().getDatabaseProductName());
+        return "PostgreSQL".equalsIgnoreCase(product) ? POSTGRESQL : H2;
+    }
+
+    public String choose(String h2Sql, String postgresqlSql) {
+        return this == POSTGRESQL ? postgresqlSql : h2Sql;
+    }
+}
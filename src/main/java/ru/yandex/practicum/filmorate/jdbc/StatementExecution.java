@@ -0,0 +1,33 @@
+package ru.yandex.practicum.filmorate.jdbc;
+
+import java.util.List;
+
+/**
+ * Одно выполнение JDBC-запроса.
+ *
+ * @param sql        текст запроса
+ * @param nanos      время выполнения; для запроса с ResultSet — от выполнения до закрытия ResultSet
+ * @param rows       прочитанные строки для запроса с ResultSet, изменённые строки для остальных, -1 — неизвестно
+ * @param parameters значения параметров по порядку (для пакета — последней строки), null для незаданных
+ * @param batchSize  число строк пакета, 0 — не пакет
+ * @param error      исключение драйвера или null
+ */
+public record StatementExecution(String sql, long nanos, long rows, List<Object> parameters, int batchSize,
+                                 Throwable error) {
+
+    /**
+     * Форма параметров без значений, например "[Long, String]" или "[Long, Long] x 500" для пакета.
+     */
+    public String parameterShape() {
+        StringBuilder shape = new StringBuilder("[");
+        for (int i = 0; i < parameters.size(); i++) {
+            Object value = parameters.get(i);
+            shape.append(i == 0 ? "" : ", ").append(value == null ? "null" : value.getClass().getSimpleName());
+        }
+        shape.append(']');
+        if (batchSize > 0) {
+            shape.append(" x ").append(batchSize);
+        }
+        return shape.toString();
+    }
+}
@@ -0,0 +1,11 @@
+package ru.yandex.practicum.filmorate.jdbc;
+
+/**
+ * Получает уведомление о каждом выполненном JDBC-запросе {@link ObservedDataSource}.
+ * Вызывается в потоке, выполнившем запрос, поэтому должен быть быстрым. Для запроса с ResultSet
+ * уведомление приходит при его закрытии, когда известно число прочитанных строк.
+ */
+public interface StatementListener {
+
+    void afterExecute(StatementExecution execution);
+}
@@ -0,0 +1,95 @@
+package ru.yandex.practicum.filmorate.logging;
+
+import lombok.extern.slf4j.Slf4j;
+import org.zalando.logbook.Correlation;
+import org.zalando.logbook.HttpLogWriter;
+import org.zalando.logbook.Precorrelation;
+
+import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Запись HTTP-лога в отдельном потоке: поток запроса только кладёт готовую строку в очередь на capacity записей.
+ * Если очередь полна, запись отбрасывается и учитывается в {@link #dropped()} — под нагрузкой лог теряет записи,
+ * но не задерживает ответы. При закрытии очередь дописывается.
+ */
+@Slf4j
+public class AsyncHttpLogWriter implements HttpLogWriter, AutoCloseable {
+    private final HttpLogWriter delegate;
+    private final BlockingQueue<Entry> queue;
+    private final LongAdder dropped = new LongAdder();
+    private final Thread worker;
+    private volatile boolean closed;
+
+    public AsyncHttpLogWriter(HttpLogWriter delegate, int capacity) {
+        this.delegate = delegate;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.worker = new Thread(this::drain, "http-log-writer");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @Override
+    public boolean isActive() {
+        return delegate.isActive();
+    }
+
+    @Override
+    public void write(Precorrelation precorrelation, String request) {
+        enqueue(new Entry(precorrelation, null, request));
+    }
+
+    @Override
+    public void write(Correlation correlation, String response) {
+        enqueue(new Entry(null, correlation, response));
+    }
+
+    private void enqueue(Entry entry) {
+        if (closed || !queue.offer(entry)) {
+            dropped.increment();
+        }
+    }
+
+    public long dropped() {
+        return dropped.sum();
+    }
+
+    public int pending() {
+        return queue.size();
+    }
+
+    private void drain() {
+        while (!closed || !queue.isEmpty()) {
+            try {
+                Entry entry = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (entry != null) {
+                    entry.writeTo(delegate);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (IOException | RuntimeException e) {
+                log.debug("Не удалось записать HTTP-лог: {}", e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        closed = true;
+        worker.join(TimeUnit.SECONDS.toMillis(5));
+    }
+
+    private record Entry(Precorrelation precorrelation, Correlation correlation, String message) {
+        void writeTo(HttpLogWriter writer) throws IOException {
+            if (correlation != null) {
+                writer.write(correlation, message);
+            } else {
+                writer.write(precorrelation, message);
+            }
+        }
+    }
+}
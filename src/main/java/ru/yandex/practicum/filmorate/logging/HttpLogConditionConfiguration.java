@@ -0,0 +1,24 @@
+package ru.yandex.practicum.filmorate.logging;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
+import org.zalando.logbook.HttpRequest;
+import org.zalando.logbook.core.Conditions;
+
+import java.util.function.Predicate;
+
+/**
+ * Какие запросы видит Logbook в любом режиме. Выгрузки NDJSON (Accept: application/x-ndjson) исключены: чтобы
+ * записать тело, Logbook копирует ответ в память целиком, а выгрузка отдаёт построчно весь каталог. Бин заменяет
+ * условие Logbook по умолчанию, поэтому свойства logbook.predicate.* не действуют.
+ */
+@Configuration(proxyBeanMethods = false)
+public class HttpLogConditionConfiguration {
+
+    @Bean
+    public Predicate<HttpRequest> requestCondition() {
+        return Conditions.exclude(Conditions.header("Accept",
+                accept -> accept.contains(MediaType.APPLICATION_NDJSON_VALUE)));
+    }
+}
@@ -0,0 +1,50 @@
+package ru.yandex.practicum.filmorate.logging;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.zalando.logbook.BodyFilter;
+import org.zalando.logbook.Strategy;
+import org.zalando.logbook.core.BodyFilters;
+import org.zalando.logbook.core.DefaultHttpLogWriter;
+
+/**
+ * Нагруженный режим HTTP-лога (filmorate.http-logging.mode=production). Заменяет бины Logbook по умолчанию:
+ * стратегию — на выборочную ({@link SampledHttpLogStrategy}), фильтр тел — на обрезку до max-body-bytes,
+ * запись — на асинхронную с ограниченной очередью ({@link AsyncHttpLogWriter}).
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(name = "filmorate.http-logging.mode", havingValue = "production")
+public class HttpLoggingConfiguration {
+
+    @Bean
+    public Strategy sampledHttpLogStrategy(@Value("${filmorate.http-logging.sample-rate:0.01}") double sampleRate,
+                                           @Value("${filmorate.http-logging.route-sample-rates:}") String routes,
+                                           @Value("${filmorate.http-logging.always-status:400}") int alwaysStatus,
+                                           @Value("${filmorate.http-logging.get-body-routes:}")
+                                           String getBodyRoutes) {
+        return new SampledHttpLogStrategy(sampleRate, SampledHttpLogStrategy.parseRouteSampleRates(routes),
+                alwaysStatus, SampledHttpLogStrategy.parseRoutes(getBodyRoutes));
+    }
+
+    @Bean
+    public BodyFilter truncatingBodyFilter(@Value("${filmorate.http-logging.max-body-bytes:2048}") int maxBodyBytes) {
+        return BodyFilter.merge(BodyFilters.defaultValue(), BodyFilters.truncate(maxBodyBytes));
+    }
+
+    @Bean
+    public AsyncHttpLogWriter asyncHttpLogWriter(MeterRegistry meterRegistry,
+                                                 @Value("${filmorate.http-logging.queue-capacity:1024}") int capacity) {
+        AsyncHttpLogWriter writer = new AsyncHttpLogWriter(new DefaultHttpLogWriter(), capacity);
+        FunctionCounter.builder("filmorate.http.log.dropped", writer, AsyncHttpLogWriter::dropped)
+                .description("Записи HTTP-лога, отброшенные из-за полной очереди")
+                .register(meterRegistry);
+        Gauge.builder("filmorate.http.log.pending", writer, AsyncHttpLogWriter::pending)
+                .register(meterRegistry);
+        return writer;
+    }
+}
@@ -0,0 +1,112 @@
+package ru.yandex.practicum.filmorate.logging;
+
+import org.zalando.logbook.Correlation;
+import org.zalando.logbook.HttpRequest;
+import org.zalando.logbook.HttpResponse;
+import org.zalando.logbook.Precorrelation;
+import org.zalando.logbook.Sink;
+import org.zalando.logbook.Strategy;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Стратегия Logbook для нагруженного режима: запрос пишется в лог вместе с ответом одной записью и только если
+ * ответ попал в выборку. Ответы со статусом от alwaysStatus пишутся всегда, остальные — с долей маршрута
+ * (самый длинный совпавший префикс пути) или общей долей.
+ * <p>
+ * Logbook решает, копировать ли тело ответа, до вызова обработчика, когда ни статус, ни размер ответа ещё
+ * не известны. Поэтому тело ответа на GET копируется только для маршрутов из getBodyRoutes (префиксы пути):
+ * списки фильмов и пользователей не держатся в памяти второй раз ради записи, которая почти всегда отбрасывается.
+ */
+public class SampledHttpLogStrategy implements Strategy {
+    private final double sampleRate;
+    private final Map<String, Double> routeSampleRates;
+    private final int alwaysStatus;
+    private final List<String> getBodyRoutes;
+
+    public SampledHttpLogStrategy(double sampleRate, Map<String, Double> routeSampleRates, int alwaysStatus,
+                                  List<String> getBodyRoutes) {
+        this.sampleRate = sampleRate;
+        this.routeSampleRates = new LinkedHashMap<>();
+        routeSampleRates.entrySet().stream()
+                .sorted(Comparator.comparingInt((Map.Entry<String, Double> route) -> route.getKey().length())
+                        .reversed())
+                .forEach(route -> this.routeSampleRates.put(route.getKey(), route.getValue()));
+        this.alwaysStatus = alwaysStatus;
+        this.getBodyRoutes = List.copyOf(getBodyRoutes);
+    }
+
+    /**
+     * Доли маршрутов из строки вида "/films/popular=0.001,/admin=1".
+     */
+    public static Map<String, Double> parseRouteSampleRates(String routes) {
+        Map<String, Double> rates = new LinkedHashMap<>();
+        for (String route : routes.split(",")) {
+            if (route.isBlank()) {
+                continue;
+            }
+            int separator = route.lastIndexOf('=');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("Ожидается маршрут=доля, получено: " + route);
+            }
+            rates.put(route.substring(0, separator).trim(), Double.parseDouble(route.substring(separator + 1).trim()));
+        }
+        return rates;
+    }
+
+    /**
+     * Префиксы маршрутов из строки вида "/genres,/mpa".
+     */
+    public static List<String> parseRoutes(String routes) {
+        return Arrays.stream(routes.split(","))
+                .map(String::trim)
+                .filter(route -> !route.isEmpty())
+                .toList();
+    }
+
+    @Override
+    public HttpRequest process(HttpRequest request) throws IOException {
+        return "GET".equals(request.getMethod()) ? request.withoutBody() : request.withBody();
+    }
+
+    @Override
+    public void write(Precorrelation precorrelation, HttpRequest request, Sink sink) {
+        // запрос пишется вместе с ответом, когда известен статус
+    }
+
+    /**
+     * Вызывается до обработчика: withoutBody() здесь выключает копирование тела ответа в буфер.
+     */
+    @Override
+    public HttpResponse process(HttpRequest request, HttpResponse response) throws IOException {
+        if ("GET".equals(request.getMethod()) && getBodyRoutes.stream().noneMatch(request.getPath()::startsWith)) {
+            return response.withoutBody();
+        }
+        return response.withBody();
+    }
+
+    @Override
+    public void write(Correlation correlation, HttpRequest request, HttpResponse response, Sink sink)
+            throws IOException {
+        if (response.getStatus() >= alwaysStatus || sampled(request.getPath())) {
+            sink.writeBoth(correlation, request, response);
+        }
+    }
+
+    private boolean sampled(String path) {
+        double rate = sampleRate;
+        for (Map.Entry<String, Double> route : routeSampleRates.entrySet()) {
+            if (path.startsWith(route.getKey())) {
+                rate = route.getValue();
+                break;
+            }
+        }
+        return rate >= 1 || rate > 0 && ThreadLocalRandom.current().nextDouble() < rate;
+    }
+}
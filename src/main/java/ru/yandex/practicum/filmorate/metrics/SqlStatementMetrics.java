@@ -0,0 +1,51 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.jdbc.StatementExecution;
+import ru.yandex.practicum.filmorate.jdbc.StatementListener;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Время каждого JDBC-запроса (filmorate.jdbc.statement) и счётчик запросов текущего HTTP-запроса,
+ * который открывает и закрывает {@link SqlStatementCountFilter}.
+ */
+@Component
+public class SqlStatementMetrics implements StatementListener {
+    private final ThreadLocal<int[]> requestCount = new ThreadLocal<>();
+    private final Timer ok;
+    private final Timer failed;
+
+    public SqlStatementMetrics(MeterRegistry meterRegistry) {
+        this.ok = timer(meterRegistry, "none");
+        this.failed = timer(meterRegistry, "error");
+    }
+
+    private static Timer timer(MeterRegistry meterRegistry, String exception) {
+        return Timer.builder("filmorate.jdbc.statement")
+                .description("Время выполнения JDBC-запроса")
+                .tag("exception", exception)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void afterExecute(StatementExecution execution) {
+        (execution.error() == null ? ok : failed).record(execution.nanos(), TimeUnit.NANOSECONDS);
+        int[] count = requestCount.get();
+        if (count != null) {
+            count[0]++;
+        }
+    }
+
+    void begin() {
+        requestCount.set(new int[1]);
+    }
+
+    int end() {
+        int[] count = requestCount.get();
+        requestCount.remove();
+        return count == null ? 0 : count[0];
+    }
+}
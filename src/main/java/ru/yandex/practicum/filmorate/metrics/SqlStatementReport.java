@@ -0,0 +1,183 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.jdbc.StatementExecution;
+import ru.yandex.practicum.filmorate.jdbc.StatementListener;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * Статистика JDBC-запросов по тексту: число выполнений, суммарное и максимальное время, строки, ошибки
+ * и формы параметров. Списки "IN (?, ?, ...)" схлопываются, чтобы выборки по разному числу id считались
+ * одним запросом. Запросы дольше threshold-ms пишутся в лог, их план (EXPLAIN с теми же параметрами)
+ * снимается в отдельном потоке не чаще раза в PLAN_TTL на запрос и попадает в лог и в отчёт.
+ */
+@Slf4j
+@Component
+public class SqlStatementReport implements StatementListener {
+    private static final Pattern IN_LIST = Pattern.compile("\\(\\s*\\?(\\s*,\\s*\\?)+\\s*\\)");
+    private static final Pattern EXPLAINABLE = Pattern.compile("^\\s*(SELECT|WITH|INSERT|UPDATE|DELETE|MERGE)\\b",
+            Pattern.CASE_INSENSITIVE);
+    private static final String OTHER_STATEMENTS = "(прочие запросы)";
+    private static final int MAX_SHAPES = 5;
+    private static final long PLAN_TTL_NANOS = TimeUnit.MINUTES.toNanos(10);
+
+    private final ObjectProvider<JdbcTemplate> jdbcTemplate;
+    private final long thresholdNanos;
+    private final boolean explain;
+    private final int maxStatements;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final ExecutorService explainExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "sql-explain");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public SqlStatementReport(ObjectProvider<JdbcTemplate> jdbcTemplate,
+                              @Value("${filmorate.jdbc.slow-query.threshold-ms:200}") long thresholdMs,
+                              @Value("${filmorate.jdbc.slow-query.explain:true}") boolean explain,
+                              @Value("${filmorate.jdbc.report.max-statements:500}") int maxStatements) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos(thresholdMs);
+        this.explain = explain;
+        this.maxStatements = maxStatements;
+    }
+
+    @Override
+    public void afterExecute(StatementExecution execution) {
+        String sql = execution.sql();
+        if (sql == null || sql.regionMatches(true, 0, "EXPLAIN", 0, 7)) {
+            return;
+        }
+        Entry entry = entry(sql.contains("?,") ? IN_LIST.matcher(sql).replaceAll("(?...)") : sql);
+        entry.record(execution);
+        if (execution.nanos() >= thresholdNanos) {
+            log.warn("Медленный запрос: {} мс, строк {}, параметры {}: {}",
+                    TimeUnit.NANOSECONDS.toMillis(execution.nanos()), execution.rows(), execution.parameterShape(), sql);
+            if (explain && execution.error() == null && EXPLAINABLE.matcher(sql).find() && entry.claimPlan()) {
+                explainExecutor.execute(() -> capturePlan(entry, execution));
+            }
+        }
+    }
+
+    private Entry entry(String sql) {
+        Entry entry = entries.get(sql);
+        if (entry != null) {
+            return entry;
+        }
+        String key = entries.size() < maxStatements ? sql : OTHER_STATEMENTS;
+        return entries.computeIfAbsent(key, Entry::new);
+    }
+
+    private void capturePlan(Entry entry, StatementExecution execution) {
+        try {
+            String plan = jdbcTemplate.getObject().query("EXPLAIN " + execution.sql(),
+                    (ResultSetExtractor<String>) resultSet -> {
+                        StringBuilder rows = new StringBuilder();
+                        while (resultSet.next()) {
+                            rows.append(rows.isEmpty() ? "" : "\n").append(resultSet.getString(1));
+                        }
+                        return rows.toString();
+                    }, execution.parameters().toArray());
+            entry.plan = plan;
+            log.warn("План медленного запроса {}:\n{}", entry.sql, plan);
+        } catch (RuntimeException e) {
+            log.warn("Не удалось получить план запроса {}", entry.sql, e);
+        }
+    }
+
+    /**
+     * Не больше limit запросов по убыванию суммарного времени.
+     */
+    public List<Summary> top(int limit) {
+        return entries.values().stream()
+                .map(Entry::summary)
+                .sorted(Comparator.comparingDouble(Summary::totalMs).reversed())
+                .limit(limit)
+                .toList();
+    }
+
+    public void reset() {
+        entries.clear();
+    }
+
+    @PreDestroy
+    public void stop() {
+        explainExecutor.shutdownNow();
+    }
+
+    /**
+     * Строка отчёта: запрос с обобщёнными списками IN, время в миллисекундах, формы параметров
+     * (не больше MAX_SHAPES) и последний снятый план или null.
+     */
+    public record Summary(String sql, long count, double totalMs, double meanMs, double maxMs, long rows, long errors,
+                          Set<String> parameterShapes, String plan) {
+    }
+
+    private static final class Entry {
+        private final String sql;
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+        private final LongAdder rows = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final Set<String> shapes = ConcurrentHashMap.newKeySet();
+        private final AtomicLong planClaimedAt = new AtomicLong(System.nanoTime() - PLAN_TTL_NANOS);
+        private volatile String plan;
+
+        private Entry(String sql) {
+            this.sql = sql;
+        }
+
+        void record(StatementExecution execution) {
+            count.increment();
+            totalNanos.add(execution.nanos());
+            maxNanos.accumulateAndGet(execution.nanos(), Math::max);
+            if (execution.rows() > 0) {
+                rows.add(execution.rows());
+            }
+            if (execution.error() != null) {
+                errors.increment();
+            }
+            if (shapes.size() < MAX_SHAPES) {
+                shapes.add(execution.parameterShape());
+            }
+        }
+
+        /**
+         * true для одного вызывающего раз в PLAN_TTL — он и снимает план.
+         */
+        boolean claimPlan() {
+            long now = System.nanoTime();
+            long claimed = planClaimedAt.get();
+            return now - claimed >= PLAN_TTL_NANOS && planClaimedAt.compareAndSet(claimed, now);
+        }
+
+        Summary summary() {
+            long executions = count.sum();
+            double totalMs = totalNanos.sum() / 1e6;
+            return new Summary(sql, executions, round(totalMs), round(executions == 0 ? 0 : totalMs / executions),
+                    round(maxNanos.get() / 1e6), rows.sum(), errors.sum(), Set.copyOf(shapes), plan);
+        }
+
+        private static double round(double ms) {
+            return Math.round(ms * 1000) / 1000.0;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.stereotype.Component;
+
+/**
+ * Время каждого метода FilmStorage, UserStorage, GenreStorage и MpaStorage в filmorate.storage
+ * с тегами storage (класс реализации), method и exception.
+ */
+@Aspect
+@Component
+@RequiredArgsConstructor
+public class StorageMetricsAspect {
+    private final MeterRegistry meterRegistry;
+
+    @Around("execution(* ru.yandex.practicum.filmorate.storage.FilmStorage.*(..))"
+            + " || execution(* ru.yandex.practicum.filmorate.storage.UserStorage.*(..))"
+            + " || execution(* ru.yandex.practicum.filmorate.storage.GenreStorage.*(..))"
+            + " || execution(* ru.yandex.practicum.filmorate.storage.MpaStorage.*(..))")
+    public Object time(ProceedingJoinPoint joinPoint) throws Throwable {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String exception = "none";
+        try {
+            return joinPoint.proceed();
+        } catch (Throwable e) {
+            exception = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            sample.stop(Timer.builder("filmorate.storage")
+                    .description("Время выполнения метода хранилища")
+                    .tag("storage", AopUtils.getTargetClass(joinPoint.getTarget()).getSimpleName())
+                    .tag("method", joinPoint.getSignature().getName())
+                    .tag("exception", exception)
+                    .register(meterRegistry));
+        }
+    }
+}
@@ -25,7 +25,7 @@ public class Film {
     private LocalDate releaseDate;
     @Positive(message = "Продолжительность фильма должна быть положительным числом")
     private Integer duration;
-    private final Set<Long> likes = new HashSet<>();
+    private final IdSet likes = new IdSet();
     private final Set<Genre> genres = new HashSet<>();
     private Mpa mpa;
 }
\ No newline at end of file
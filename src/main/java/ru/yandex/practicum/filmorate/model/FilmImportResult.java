@@ -0,0 +1,23 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Результат импорта одного фильма из пакета: id созданного фильма либо текст ошибки.
+ */
+@Data
+@AllArgsConstructor
+public class FilmImportResult {
+    private int index;
+    private Long id;
+    private String error;
+
+    public static FilmImportResult created(int index, Long id) {
+        return new FilmImportResult(index, id, null);
+    }
+
+    public static FilmImportResult failed(int index, String error) {
+        return new FilmImportResult(index, null, error);
+    }
+}
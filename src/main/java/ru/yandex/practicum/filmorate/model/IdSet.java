@@ -0,0 +1,185 @@
+package ru.yandex.practicum.filmorate.model;
+
+import org.roaringbitmap.PeekableIntIterator;
+import org.roaringbitmap.RoaringBitmap;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.stream.LongStream;
+
+/**
+ * Множество id в сжатом виде (roaring bitmap): около 2 байт на элемент в плотных диапазонах вместо
+ * ~50 байт у HashSet&lt;Long&gt;, мощность за O(1), пересечение — поблочными операциями над битовыми картами.
+ * Реализует Set&lt;Long&gt;, поэтому в JSON по-прежнему массив чисел. Не потокобезопасно.
+ */
+public class IdSet extends AbstractSet<Long> {
+    private static final long MAX_ID = 0xFFFF_FFFFL;
+
+    private final RoaringBitmap bitmap;
+
+    public IdSet() {
+        this(new RoaringBitmap());
+    }
+
+    public IdSet(Collection<Long> ids) {
+        this();
+        addAll(ids);
+    }
+
+    private IdSet(RoaringBitmap bitmap) {
+        this.bitmap = bitmap;
+    }
+
+    public static IdSet of(long... ids) {
+        IdSet set = new IdSet();
+        for (long id : ids) {
+            set.add(id);
+        }
+        return set;
+    }
+
+    public boolean add(long id) {
+        return bitmap.checkedAdd(toInt(id));
+    }
+
+    public boolean contains(long id) {
+        return id >= 0 && id <= MAX_ID && bitmap.contains((int) id);
+    }
+
+    public boolean remove(long id) {
+        return id >= 0 && id <= MAX_ID && bitmap.checkedRemove((int) id);
+    }
+
+    /**
+     * Независимая копия: изменения копии не видны в исходном множестве и наоборот.
+     */
+    public IdSet copy() {
+        return new IdSet(bitmap.clone());
+    }
+
+    public IdSet and(IdSet other) {
+        return new IdSet(RoaringBitmap.and(bitmap, other.bitmap));
+    }
+
+    public int andCardinality(IdSet other) {
+        return RoaringBitmap.andCardinality(bitmap, other.bitmap);
+    }
+
+    /**
+     * Объём битовой карты в памяти (оценка roaring bitmap, без заголовка самого объекта IdSet).
+     */
+    public long sizeInBytes() {
+        return bitmap.getLongSizeInBytes();
+    }
+
+    public LongStream longStream() {
+        return Arrays.stream(bitmap.toArray()).mapToLong(Integer::toUnsignedLong);
+    }
+
+    @Override
+    public boolean add(Long id) {
+        return add(id.longValue());
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return o instanceof Long id && contains(id.longValue());
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        return o instanceof Long id && remove(id.longValue());
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends Long> ids) {
+        if (ids instanceof IdSet other) {
+            int before = bitmap.getCardinality();
+            bitmap.or(other.bitmap);
+            return bitmap.getCardinality() != before;
+        }
+        return super.addAll(ids);
+    }
+
+    @Override
+    public boolean retainAll(Collection<?> ids) {
+        RoaringBitmap retained = new RoaringBitmap();
+        if (ids instanceof IdSet other) {
+            retained = RoaringBitmap.and(bitmap, other.bitmap);
+        } else {
+            for (Object id : ids) {
+                if (contains(id)) {
+                    retained.add((int) (long) (Long) id);
+                }
+            }
+        }
+        boolean changed = retained.getCardinality() != bitmap.getCardinality();
+        bitmap.clear();
+        bitmap.or(retained);
+        return changed;
+    }
+
+    @Override
+    public int size() {
+        return bitmap.getCardinality();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return bitmap.isEmpty();
+    }
+
+    @Override
+    public void clear() {
+        bitmap.clear();
+    }
+
+    /**
+     * Итератор по возрастанию id. remove() удаляет id из битовой карты; итератор roaring bitmap после изменения
+     * карты недействителен, поэтому он пересоздаётся и продвигается за удалённый id.
+     */
+    @Override
+    public Iterator<Long> iterator() {
+        return new Iterator<>() {
+            private PeekableIntIterator ids = bitmap.getIntIterator();
+            private int last;
+            private boolean removable;
+
+            @Override
+            public boolean hasNext() {
+                return ids.hasNext();
+            }
+
+            @Override
+            public Long next() {
+                if (!ids.hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                last = ids.next();
+                removable = true;
+                return Integer.toUnsignedLong(last);
+            }
+
+            @Override
+            public void remove() {
+                if (!removable) {
+                    throw new IllegalStateException();
+                }
+                removable = false;
+                bitmap.remove(last);
+                ids = bitmap.getIntIterator();
+                ids.advanceIfNeeded(last);
+            }
+        };
+    }
+
+    private static int toInt(long id) {
+        if (id < 0 || id > MAX_ID) {
+            throw new IllegalArgumentException("id вне допустимого диапазона: " + id);
+        }
+        return (int) id;
+    }
+}
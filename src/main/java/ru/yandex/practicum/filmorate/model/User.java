@@ -8,8 +8,6 @@ import lombok.Builder;
 import lombok.Data;
 
 import java.time.LocalDate;
-import java.util.HashSet;
-import java.util.Set;
 
 /**
  * User.
@@ -27,7 +25,7 @@ public class User {
     private String name;
     @PastOrPresent(message = "Дата рождения не может быть в будущем")
     private LocalDate birthday;
-    private final Set<Long> friends = new HashSet<>();
+    private final IdSet friends = new IdSet();
     /* true -подтверждённая дружба — когда второй пользователь согласился на добавление,
      false - неподтверждённая — когда один пользователь отправил запрос на добавление другого пользователя в друзья.*/
     private boolean friendStatus;
@@ -1,81 +1,233 @@
 package ru.yandex.practicum.filmorate.service;
 
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 import jakarta.validation.constraints.*;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.dao.DataAccessException;
 import org.springframework.stereotype.Service;
 import org.springframework.validation.annotation.Validated;
 import ru.yandex.practicum.filmorate.exception.DuplicatedDataException;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.exception.ValidationException;
 import ru.yandex.practicum.filmorate.model.Film;
-import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.model.FilmImportResult;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
 import ru.yandex.practicum.filmorate.storage.FilmStorage;
 import ru.yandex.practicum.filmorate.storage.GenreStorage;
 import ru.yandex.practicum.filmorate.storage.MpaStorage;
 import ru.yandex.practicum.filmorate.storage.UserStorage;
+import ru.yandex.practicum.filmorate.storage.index.FilmSearchIndex;
+import ru.yandex.practicum.filmorate.storage.index.TrendingIndex;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Service
 @Validated
 public class FilmService {
+    private static final int IMPORT_CHUNK_SIZE = 500;
+    private static final int IMPORT_MAX_SIZE = 10_000;
+
     private final FilmStorage filmStorage;
     private final UserStorage userStorage;
     private final MpaStorage mpaStorage;
     private final GenreStorage genreStorage;
+    private final Validator validator;
 
     @Autowired
     public FilmService(@Qualifier("FilmDbStorage"/*"InMemoryFilmStorage"*/) FilmStorage filmStorage,
                        @Qualifier("UserDbStorage"/*"InMemoryUserStorage"*/) UserStorage userStorage,
-                       @Qualifier("MpaDbStorage") MpaStorage mpaStorage,
-                       @Qualifier("GenreDbStorage") GenreStorage genreStorage) {
+                       @Qualifier("CachedMpaStorage") MpaStorage mpaStorage,
+                       @Qualifier("CachedGenreStorage") GenreStorage genreStorage,
+                       Validator validator) {
         this.filmStorage = filmStorage;
         this.userStorage = userStorage;
         this.mpaStorage = mpaStorage;
         this.genreStorage = genreStorage;
+        this.validator = validator;
     }
 
     public void addLike(Long filmId, Long userId) throws NotFoundException, DuplicatedDataException {
-        Film film = filmStorage.findFilmById(filmId).orElseThrow(() -> new NotFoundException(
-                "Не удалось поставить Like, Фильм Id:" + filmId + "не найден."));
-        User user = userStorage.findUserById(userId).orElseThrow(() -> new NotFoundException(
-                "Пользователь Id:\" + filmId + \"не найден."));
-
+        log.debug("addLike: film {} from user {}", filmId, userId);
         filmStorage.addLike(filmId, userId);
     }
 
-
     public void removeLike(Long filmId, Long userId) throws NotFoundException {
-        if (filmStorage.findFilmById(filmId).isEmpty()) {
-            throw new NotFoundException("Не удалось удалить Like, Фильм Id:" + filmId + "не найден.");
-        } else if (userStorage.findUserById(userId).isEmpty()) {
-            throw new NotFoundException("Пользователь Id:" + filmId + "не найден.");
-        } else filmStorage.deleteLike(filmId, userId);
+        log.debug("removeLike: film {} from user {}", filmId, userId);
+        filmStorage.deleteLike(filmId, userId);
     }
 
     public Optional<Film> findFilmById(Long filmId) throws NotFoundException {
         return filmStorage.findFilmById(filmId);
     }
 
+    public List<Film> findFilmsByIds(List<Long> filmIds) {
+        return filmStorage.findFilmsByIds(filmIds);
+    }
+
     public Collection<Film> findPopularFilms(@Positive Integer count) throws ValidationException {
         return filmStorage.findPopularFilms(count);
     }
 
+    public Collection<Film> findRecommendations(Long userId, int count) throws NotFoundException {
+        if (!userStorage.existsUser(userId)) {
+            throw new NotFoundException("Пользователь Id:" + userId + " не найден.");
+        }
+        return filmStorage.findRecommendations(userId, count);
+    }
+
+    public Collection<Film> searchFilms(String query, int count) throws ValidationException {
+        if (StringUtils.isBlank(query)) {
+            throw new ValidationException("Поисковый запрос не может быть пустым");
+        }
+        return filmStorage.searchFilms(query, count);
+    }
+
+    public FilmSearchIndex.Stats searchStats() {
+        return filmStorage.searchStats();
+    }
+
+    public Collection<Film> findTrendingFilms(@Positive Integer count, Duration window) {
+        return filmStorage.findTrendingFilms(count, window);
+    }
+
+    /**
+     * Версия рейтинга за окно меняется и без новых лайков — когда окно сдвигается на следующую корзину.
+     */
+    public long[] popularVersion(Duration window) {
+        long[] version = catalogVersion();
+        if (window == null) {
+            return version;
+        }
+        long[] windowed = Arrays.copyOf(version, version.length + 1);
+        windowed[version.length] = Instant.now().toEpochMilli() / TrendingIndex.BUCKET.toMillis();
+        return windowed;
+    }
+
+    /**
+     * Версии для ETag: фильмы отдаются вместе с названиями жанров и рейтингов,
+     * поэтому в них входит и версия справочников.
+     */
+    public long[] catalogVersion() {
+        return new long[]{filmStorage.version(), genreStorage.version(), mpaStorage.version()};
+    }
+
+    public long[] filmVersion(Long filmId) {
+        return new long[]{filmStorage.version(filmId), genreStorage.version(), mpaStorage.version()};
+    }
+
+    public void rebuildPopularity() {
+        log.info("Пересчёт счётчиков лайков");
+        filmStorage.rebuildPopularity();
+    }
+
+    public Map<Long, Long> verifyPopularity() {
+        return filmStorage.verifyPopularity();
+    }
+
     public Collection<Film> findAll() {
         return filmStorage.findAll();
     }
 
+    public void streamAll(Consumer<Film> consumer) {
+        filmStorage.streamAll(consumer);
+    }
+
+    public List<Film> findPage(Long afterId, int limit) {
+        return filmStorage.findPage(afterId, limit);
+    }
+
     public Film create(Film film) throws NotFoundException, ValidationException {
         validateFilm(film);
         return filmStorage.create(film);
     }
 
+    /**
+     * Импорт каталога: каждый фильм проверяется отдельно, корректные пишутся пачками по IMPORT_CHUNK_SIZE.
+     * Если пачка не записалась, её фильмы пишутся по одному, и ошибка достаётся только тем, что не записались сами.
+     */
+    public List<FilmImportResult> importFilms(List<Film> films) throws ValidationException {
+        if (films.size() > IMPORT_MAX_SIZE) {
+            throw new ValidationException("За один запрос можно загрузить не более " + IMPORT_MAX_SIZE + " фильмов");
+        }
+        FilmImportResult[] results = new FilmImportResult[films.size()];
+        List<Integer> chunk = new ArrayList<>(IMPORT_CHUNK_SIZE);
+        for (int i = 0; i < films.size(); i++) {
+            try {
+                validateImportedFilm(films.get(i));
+                chunk.add(i);
+            } catch (ValidationException e) {
+                results[i] = FilmImportResult.failed(i, e.getMessage());
+            }
+            if (chunk.size() == IMPORT_CHUNK_SIZE) {
+                importChunk(films, chunk, results);
+            }
+        }
+        importChunk(films, chunk, results);
+        log.info("Импорт фильмов: получено {}", films.size());
+        return Arrays.asList(results);
+    }
+
+    private void importChunk(List<Film> films, List<Integer> chunk, FilmImportResult[] results) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        List<Film> batch = chunk.stream().map(films::get).toList();
+        try {
+            filmStorage.createAll(batch);
+            chunk.forEach(i -> results[i] = FilmImportResult.created(i, films.get(i).getId()));
+        } catch (ValidationException | DataAccessException e) {
+            log.warn("Не удалось записать пачку из {} фильмов, пишем по одному: {}", batch.size(), e.getMessage());
+            chunk.forEach(i -> importOne(films.get(i), i, results));
+        }
+        chunk.clear();
+    }
+
+    private void importOne(Film film, int index, FilmImportResult[] results) {
+        film.setId(null);
+        try {
+            filmStorage.createAll(List.of(film));
+            results[index] = FilmImportResult.created(index, film.getId());
+        } catch (ValidationException | DataAccessException e) {
+            results[index] = FilmImportResult.failed(index, e.getMessage());
+        }
+    }
+
+    private void validateImportedFilm(Film film) throws ValidationException {
+        if (film == null) {
+            throw new ValidationException("Пустая запись");
+        }
+        Set<ConstraintViolation<Film>> violations = validator.validate(film);
+        if (!violations.isEmpty()) {
+            throw new ValidationException(violations.stream()
+                    .map(ConstraintViolation::getMessage)
+                    .sorted()
+                    .collect(Collectors.joining("; ")));
+        }
+        validateFilm(film);
+        for (Genre genre : film.getGenres()) {
+            if (genre.getId() == null || genreStorage.findGenreById(genre.getId()).isEmpty()) {
+                throw new ValidationException("Genre not found");
+            }
+        }
+    }
+
     public Film update(Film newFilm) throws ValidationException, NotFoundException {
         filmStorage.existFilmById(newFilm.getId());
         return filmStorage.update(newFilm);
@@ -84,7 +236,7 @@ public class FilmService {
     private void validateFilm(Film film) throws ValidationException {
         nameValidation(film.getName());
         releaseDateValidation(film.getReleaseDate());
-        mpaValidation((film.getMpa().getId()));
+        mpaValidation(film.getMpa());
     }
 
     private void nameValidation(String name) throws ValidationException {
@@ -101,10 +253,12 @@ public class FilmService {
         }
     }
 
-    private void mpaValidation(Integer mpaId) throws ValidationException {
-        int mpaCount = mpaStorage.findMpaCount();
-        if (mpaId > mpaCount) {
-            throw new ValidationException("Mpa has only " + mpaCount + " ratings");
+    private void mpaValidation(Mpa mpa) throws ValidationException {
+        if (mpa == null || mpa.getId() == null) {
+            throw new ValidationException("Должен быть указан рейтинг MPA");
+        }
+        if (mpaStorage.findMpaById(mpa.getId()).isEmpty()) {
+            throw new ValidationException("Mpa not found");
         }
     }
 }
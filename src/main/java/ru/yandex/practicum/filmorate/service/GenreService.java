@@ -2,6 +2,7 @@ package ru.yandex.practicum.filmorate.service;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Component;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.model.Genre;
@@ -16,7 +17,7 @@ public class GenreService {
     private final GenreStorage genreStorage;
 
     @Autowired
-    public GenreService(GenreStorage genreStorage) {
+    public GenreService(@Qualifier("CachedGenreStorage") GenreStorage genreStorage) {
         this.genreStorage = genreStorage;
     }
 
@@ -26,6 +27,15 @@ public class GenreService {
         return genres;
     }
 
+    public long version() {
+        return genreStorage.version();
+    }
+
+    public void refresh() {
+        log.info("Обновление справочника жанров");
+        genreStorage.refresh();
+    }
+
     public Optional<Genre> findGenreById(int id) throws NotFoundException {
         Genre genre = genreStorage.findGenreById(id).orElseThrow(() -> new NotFoundException("Genre not found"));
         log.debug("findGenreById: {}", genre);
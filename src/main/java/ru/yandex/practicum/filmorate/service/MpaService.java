@@ -2,6 +2,7 @@ package ru.yandex.practicum.filmorate.service;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Component;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.model.Mpa;
@@ -17,7 +18,7 @@ public class MpaService {
     private final MpaStorage mpaStorage;
 
     @Autowired
-    public MpaService(MpaStorage mpaStorage) {
+    public MpaService(@Qualifier("CachedMpaStorage") MpaStorage mpaStorage) {
         this.mpaStorage = mpaStorage;
     }
 
@@ -32,6 +33,15 @@ public class MpaService {
         return mpaStorage.findMpaCount();
     }
 
+    public long version() {
+        return mpaStorage.version();
+    }
+
+    public void refresh() {
+        log.info("Обновление справочника MPA");
+        mpaStorage.refresh();
+    }
+
     public Optional<Mpa> findMpaById(int id) throws NotFoundException {
         Mpa mpa = mpaStorage.findMpaById(id)
                 .orElseThrow(() -> new NotFoundException("Rating does not exist"));
@@ -3,6 +3,7 @@ package ru.yandex.practicum.filmorate.service;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 import ru.yandex.practicum.filmorate.exception.DuplicatedDataException;
@@ -12,31 +13,40 @@ import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.storage.UserStorage;
 
 import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 @Slf4j
 @Service
 public class UserService {
     private final UserStorage userStorage;
+    private final int suggestionMaxEdges;
+    private final long suggestionBudgetNanos;
 
     @Autowired
-    public UserService(@Qualifier("UserDbStorage"/*"InMemoryUserStorage"*/) UserStorage userStorage) {
+    public UserService(@Qualifier("UserDbStorage"/*"InMemoryUserStorage"*/) UserStorage userStorage,
+                       @Value("${filmorate.friends.suggestions.max-edges:200000}") int suggestionMaxEdges,
+                       @Value("${filmorate.friends.suggestions.budget-ms:20}") long suggestionBudgetMs) {
         this.userStorage = userStorage;
+        this.suggestionMaxEdges = suggestionMaxEdges;
+        this.suggestionBudgetNanos = TimeUnit.MILLISECONDS.toNanos(suggestionBudgetMs);
     }
 
     public User findUserById(Long id) throws NotFoundException {
         return userStorage.findUserById(id).orElseThrow(() -> new NotFoundException("Пользователь не найден"));
     }
 
+    public List<User> findUsersByIds(List<Long> userIds) {
+        return userStorage.findUsersByIds(userIds);
+    }
+
     public void addFriend(Long userId, Long friendId) throws NotFoundException {
-        userStorage.existById(userId, friendId);
         log.debug("addFriend: {} to {}", friendId, userId);
         userStorage.addFriend(userId, friendId);
     }
 
     public void deleteFriend(Long userId, Long friendId) throws NotFoundException {
-        if (userStorage.findUserById(userId).isEmpty() || userStorage.findUserById(friendId).isEmpty()) {
-            throw new NotFoundException("Пользователь не найден.");
-        }
         log.debug("deleteFriend: {} from {}", friendId, userId);
         userStorage.deleteFriend(userId, friendId);
     }
@@ -47,17 +57,41 @@ public class UserService {
         return userStorage.findAllFriends(userId);
     }
 
+    public List<User> findFriendsPage(Long userId, Long afterId, int limit) throws NotFoundException {
+        findUserById(userId);
+        return userStorage.findFriendsPage(userId, afterId, limit);
+    }
+
     public Collection<User> findMutualFriends(Long userId, Long friendId) throws NotFoundException {
-        Collection<User> userFriends = findAllFriends(userId);
-        Collection<User> friendFriends = findAllFriends(friendId);
-        userFriends.retainAll(friendFriends);
-        return userFriends;
+        if (!userStorage.existsUser(userId) || !userStorage.existsUser(friendId)) {
+            throw new NotFoundException("Пользователь не найден");
+        }
+        return userStorage.findMutualFriends(userId, friendId);
+    }
+
+    /**
+     * Бюджет времени отсчитывается от начала вызова и ограничивает только обход графа, не загрузку пользователей.
+     */
+    public List<User> findFriendSuggestions(Long userId, int limit) throws NotFoundException {
+        if (!userStorage.existsUser(userId)) {
+            throw new NotFoundException("Пользователь не найден");
+        }
+        long deadline = System.nanoTime() + suggestionBudgetNanos;
+        return userStorage.findFriendSuggestions(userId, limit, suggestionMaxEdges, deadline);
     }
 
     public Collection<User> findAll() {
         return userStorage.findAll();
     }
 
+    public void streamAll(Consumer<User> consumer) {
+        userStorage.streamAll(consumer);
+    }
+
+    public List<User> findPage(Long afterId, int limit) {
+        return userStorage.findPage(afterId, limit);
+    }
+
     public User create(User user) throws ValidationException, DuplicatedDataException {
         userNameValidation(user);
         log.info("Создание нового пользователя login: {}", user.getLogin());
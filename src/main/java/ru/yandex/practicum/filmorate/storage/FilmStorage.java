@@ -4,9 +4,14 @@ import ru.yandex.practicum.filmorate.exception.DuplicatedDataException;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.exception.ValidationException;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.index.FilmSearchIndex;
 
+import java.time.Duration;
 import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface FilmStorage {
 
@@ -14,15 +19,57 @@ public interface FilmStorage {
 
     Collection<Film> findAll();
 
+    List<Film> findPage(Long afterId, int limit);
+
+    void streamAll(Consumer<Film> consumer);
+
     Film create(Film film) throws ValidationException, NotFoundException;
 
+    List<Film> createAll(List<Film> films) throws ValidationException;
+
     Film update(Film film) throws ValidationException, NotFoundException;
 
     Optional<Film> findFilmById(Long id) throws NotFoundException;
 
+    /**
+     * Фильмы с указанными id в том же порядке; отсутствующие id пропускаются.
+     */
+    List<Film> findFilmsByIds(List<Long> filmIds);
+
     void addLike(Long filmId, Long userId) throws DuplicatedDataException, NotFoundException;
 
     Collection<Film> findPopularFilms(Integer count) throws ValidationException;
 
+    /**
+     * Самые залайканные фильмы за последнее окно window (не длиннее недели).
+     */
+    Collection<Film> findTrendingFilms(Integer count, Duration window);
+
+    /**
+     * Фильмы, которые лайкали пользователи с похожей историей лайков, а сам пользователь — нет.
+     */
+    Collection<Film> findRecommendations(Long userId, int count);
+
+    /**
+     * Фильмы, в названии или описании которых есть все слова запроса (в том числе как префиксы), по релевантности.
+     */
+    Collection<Film> searchFilms(String query, int count);
+
+    FilmSearchIndex.Stats searchStats();
+
     boolean existFilmById(Long newFilm) throws NotFoundException;
+
+    void rebuildPopularity();
+
+    Map<Long, Long> verifyPopularity();
+
+    /**
+     * Версия каталога: растёт при любом изменении фильмов и лайков.
+     */
+    long version();
+
+    /**
+     * Номер последнего изменения фильма, 0 — не менялся с запуска.
+     */
+    long version(Long filmId);
 }
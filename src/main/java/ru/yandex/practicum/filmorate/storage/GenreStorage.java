@@ -1,6 +1,5 @@
 package ru.yandex.practicum.filmorate.storage;
 
-import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.model.Genre;
 
 import java.util.List;
@@ -10,5 +9,12 @@ public interface GenreStorage {
 
     List<Genre> findAllGenres();
 
-    Optional<Genre> findGenreById(int id) throws NotFoundException;
+    Optional<Genre> findGenreById(int id);
+
+    void refresh();
+
+    /**
+     * Версия справочника, меняется, когда refresh() загрузил другие данные.
+     */
+    long version();
 }
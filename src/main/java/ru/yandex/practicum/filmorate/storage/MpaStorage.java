@@ -11,4 +11,11 @@ public interface MpaStorage {
     Optional<Mpa> findMpaById(Integer id);
 
     Integer findMpaCount();
+
+    void refresh();
+
+    /**
+     * Версия справочника, меняется, когда refresh() загрузил другие данные.
+     */
+    long version();
 }
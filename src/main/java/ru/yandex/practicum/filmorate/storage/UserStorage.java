@@ -8,16 +8,28 @@ import ru.yandex.practicum.filmorate.model.User;
 import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface UserStorage {
     Collection<User> findAll();
 
+    List<User> findPage(Long afterId, int limit);
+
+    void streamAll(Consumer<User> consumer);
+
     User create(User user) throws ValidationException, DuplicatedDataException;
 
     User update(User newUser) throws ValidationException, NotFoundException, DuplicatedDataException;
 
     Optional<User> findUserById(Long userId) throws NotFoundException;
 
+    boolean existsUser(Long userId);
+
+    /**
+     * Пользователи с указанными id в том же порядке; отсутствующие id пропускаются.
+     */
+    List<User> findUsersByIds(List<Long> userIds);
+
     void addFriend(Long userId, Long friendId) throws NotFoundException;
 
     void acceptFriend(Long userId, Long friendId) throws NotFoundException;
@@ -26,8 +38,20 @@ public interface UserStorage {
 
     List<User> findAllFriends(Long userId) throws NotFoundException;
 
+    List<User> findFriendsPage(Long userId, Long afterId, int limit);
+
     List<User> findMutualFriends(Long userId, Long otherId);
 
+    /**
+     * Друзья друзей по убыванию числа общих друзей. Обход останавливается после maxEdges рёбер
+     * или по наступлении deadline (System.nanoTime()) — тогда результат строится по просмотренной части.
+     */
+    List<User> findFriendSuggestions(Long userId, int limit, int maxEdges, long deadline);
+
+    /**
+     * Удаляет пользователя; его заявки в друзья и лайки уходят каскадом в БД. Счётчики лайков фильмов при этом
+     * не пересчитываются — их выравнивает POST /admin/popularity/rebuild.
+     */
     void deleteUser(Long userId);
 
     public boolean existById(Long userId, Long friendId) throws NotFoundException;
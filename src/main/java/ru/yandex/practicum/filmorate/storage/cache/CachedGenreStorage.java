@@ -0,0 +1,63 @@
+package ru.yandex.practicum.filmorate.storage.cache;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.storage.GenreStorage;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Справочник жанров в памяти. Загружается при старте и по refresh(),
+ * поиск по id — обращение к неизменяемому массиву без запросов к БД.
+ */
+@Slf4j
+@Component("CachedGenreStorage")
+public class CachedGenreStorage implements GenreStorage {
+    private final GenreStorage genreStorage;
+    private final AtomicLong version = new AtomicLong();
+    private volatile Snapshot snapshot = new Snapshot(List.of(), new Genre[0]);
+
+    @Autowired
+    public CachedGenreStorage(@Qualifier("GenreDbStorage") GenreStorage genreStorage) {
+        this.genreStorage = genreStorage;
+    }
+
+    @PostConstruct
+    @Override
+    public void refresh() {
+        List<Genre> genres = List.copyOf(genreStorage.findAllGenres());
+        int maxId = genres.stream().mapToInt(Genre::getId).max().orElse(0);
+        Genre[] byId = new Genre[maxId + 1];
+        genres.forEach(genre -> byId[genre.getId()] = genre);
+        if (!genres.equals(snapshot.genres())) {
+            version.incrementAndGet();
+        }
+        snapshot = new Snapshot(genres, byId);
+        log.info("Загружено жанров: {}", genres.size());
+    }
+
+    @Override
+    public List<Genre> findAllGenres() {
+        return snapshot.genres();
+    }
+
+    @Override
+    public Optional<Genre> findGenreById(int id) {
+        Genre[] byId = snapshot.byId();
+        return id >= 0 && id < byId.length ? Optional.ofNullable(byId[id]) : Optional.empty();
+    }
+
+    @Override
+    public long version() {
+        return version.get();
+    }
+
+    private record Snapshot(List<Genre> genres, Genre[] byId) {
+    }
+}
@@ -0,0 +1,67 @@
+package ru.yandex.practicum.filmorate.storage.cache;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.storage.MpaStorage;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Справочник рейтингов MPA в памяти, устроен так же, как {@link CachedGenreStorage}.
+ */
+@Slf4j
+@Component("CachedMpaStorage")
+public class CachedMpaStorage implements MpaStorage {
+    private final MpaStorage mpaStorage;
+    private final AtomicLong version = new AtomicLong();
+    private volatile Snapshot snapshot = new Snapshot(List.of(), new Mpa[0]);
+
+    @Autowired
+    public CachedMpaStorage(@Qualifier("MpaDbStorage") MpaStorage mpaStorage) {
+        this.mpaStorage = mpaStorage;
+    }
+
+    @PostConstruct
+    @Override
+    public void refresh() {
+        List<Mpa> ratings = List.copyOf(mpaStorage.findAllMpa());
+        int maxId = ratings.stream().mapToInt(Mpa::getId).max().orElse(0);
+        Mpa[] byId = new Mpa[maxId + 1];
+        ratings.forEach(mpa -> byId[mpa.getId()] = mpa);
+        if (!ratings.equals(snapshot.ratings())) {
+            version.incrementAndGet();
+        }
+        snapshot = new Snapshot(ratings, byId);
+        log.info("Загружено рейтингов MPA: {}", ratings.size());
+    }
+
+    @Override
+    public List<Mpa> findAllMpa() {
+        return snapshot.ratings();
+    }
+
+    @Override
+    public Optional<Mpa> findMpaById(Integer id) {
+        Mpa[] byId = snapshot.byId();
+        return id != null && id >= 0 && id < byId.length ? Optional.ofNullable(byId[id]) : Optional.empty();
+    }
+
+    @Override
+    public Integer findMpaCount() {
+        return snapshot.ratings().size();
+    }
+
+    @Override
+    public long version() {
+        return version.get();
+    }
+
+    private record Snapshot(List<Mpa> ratings, Mpa[] byId) {
+    }
+}
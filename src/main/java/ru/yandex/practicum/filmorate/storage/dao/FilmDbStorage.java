@@ -2,27 +2,49 @@ package ru.yandex.practicum.filmorate.storage.dao;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.jdbc.core.ConnectionCallback;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
 import ru.yandex.practicum.filmorate.exception.DuplicatedDataException;
+import ru.yandex.practicum.filmorate.exception.InternalServerException;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.jdbc.ReplicaRead;
+import ru.yandex.practicum.filmorate.jdbc.SqlDialect;
 import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.Genre;
 import ru.yandex.practicum.filmorate.model.Mpa;
-import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.storage.FilmStorage;
 import ru.yandex.practicum.filmorate.storage.GenreStorage;
 import ru.yandex.practicum.filmorate.storage.UserStorage;
+import ru.yandex.practicum.filmorate.model.IdSet;
+import ru.yandex.practicum.filmorate.storage.index.FilmPopularityIndex;
+import ru.yandex.practicum.filmorate.storage.index.FilmSearchIndex;
+import ru.yandex.practicum.filmorate.storage.index.LikeMatrix;
+import ru.yandex.practicum.filmorate.storage.index.TrendingIndex;
+import ru.yandex.practicum.filmorate.storage.index.VersionCounter;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.TreeMap;
+import java.util.function.Consumer;
 import java.sql.PreparedStatement;
 import java.sql.Statement;
 
@@ -36,7 +58,7 @@ public class FilmDbStorage implements FilmStorage {
 
     @Autowired
     public FilmDbStorage(JdbcTemplate jdbcTemplate, @Qualifier("UserDbStorage") UserStorage userStorage,
-                         @Qualifier("GenreDbStorage") GenreStorage genreStorage) {
+                         @Qualifier("CachedGenreStorage") GenreStorage genreStorage) {
         this.jdbcTemplate = jdbcTemplate;
         this.userStorage = userStorage;
         this.genreStorage = genreStorage;
@@ -44,6 +66,11 @@ public class FilmDbStorage implements FilmStorage {
 
     private static final String FIND_ALL_FILMS = "SELECT * FROM films AS f" +
             " LEFT JOIN rating AS r ON f.rating_id = r.rating_id;";
+    private static final String FIND_PAGE_QUERY = "SELECT * FROM films AS f" +
+            " LEFT JOIN rating AS r ON f.rating_id = r.rating_id WHERE f.film_id > ? ORDER BY f.film_id LIMIT ?;";
+    private static final String STREAM_ALL_QUERY = "SELECT * FROM films AS f" +
+            " LEFT JOIN rating AS r ON f.rating_id = r.rating_id ORDER BY f.film_id;";
+    private static final int STREAM_FETCH_SIZE = 500;
     private static final String FIND_BY_ID_QUERY = "SELECT * FROM films AS f JOIN rating AS r" +
             " ON f.rating_id = r.rating_id WHERE film_id = ?;";
     private static final String INSERT_QUERY = "INSERT INTO films(name, description, releaseDate, duration, rating_id)" +
@@ -52,43 +79,122 @@ public class FilmDbStorage implements FilmStorage {
             "duration = ?, rating_id = ? WHERE film_id = ?;";
     private static final String INSERT_INTO_FILM_GENRE = "INSERT INTO film_genre (film_id, genre_id) VALUES (?, ?);";
     private static final String FILM_GENRE_DELETE_QUERY = "DELETE FROM film_genre WHERE film_id = ?;";
-    private static final String INSERT_INTO_LIKES = "INSERT INTO likes (film_id, user_id) VALUES (?, ?);";
+    private static final String INSERT_INTO_LIKES_H2 = "MERGE INTO likes AS l USING (SELECT f.film_id, u.user_id " +
+            "FROM films AS f, users AS u WHERE f.film_id = ? AND u.user_id = ?) AS s " +
+            "ON l.film_id = s.film_id AND l.user_id = s.user_id " +
+            "WHEN NOT MATCHED THEN INSERT (film_id, user_id, created_at) VALUES (s.film_id, s.user_id, ?);";
+    private static final String LOCK_FILM_QUERY = "SELECT film_id FROM films WHERE film_id = ? FOR UPDATE;";
+    private static final String INSERT_INTO_LIKES_POSTGRESQL = "INSERT INTO likes (film_id, user_id, created_at) " +
+            "SELECT f.film_id, u.user_id, ? FROM films AS f, users AS u WHERE f.film_id = ? AND u.user_id = ? " +
+            "ON CONFLICT (film_id, user_id) DO NOTHING;";
+    private static final String EXISTS_QUERY = "SELECT EXISTS(SELECT 1 FROM films WHERE film_id = ?);";
+    private static final String FIND_LIKE_TIME_QUERY = "SELECT created_at FROM likes WHERE film_id = ? AND user_id = ?" +
+            " FOR UPDATE;";
     private static final String DELETE_LIKE_QUERY = "DELETE FROM likes WHERE film_id = ? AND user_id = ?;";
+    private static final String FIND_GENRES_QUERY = "SELECT fg.film_id, g.genre_id, g.genre_name FROM film_genre AS fg" +
+            " JOIN genre AS g ON g.genre_id = fg.genre_id";
+    private static final String FIND_LIKES_QUERY = "SELECT film_id, user_id FROM likes";
+    private static final String FIND_BY_IDS_QUERY = "SELECT * FROM films AS f JOIN rating AS r" +
+            " ON f.rating_id = r.rating_id WHERE f.film_id IN (%s);";
+    private static final String CHANGE_LIKE_COUNT_QUERY = "UPDATE films SET like_count = like_count + ? WHERE film_id = ?;";
+    private static final String RECOUNT_LIKES_QUERY = "UPDATE films AS f SET like_count = " +
+            "(SELECT COUNT(*) FROM likes AS l WHERE l.film_id = f.film_id);";
+    private static final String FIND_LIKE_COUNTS_QUERY = "SELECT film_id, like_count FROM films;";
+    private static final String FIND_RECENT_LIKES_QUERY = "SELECT film_id, created_at FROM likes WHERE created_at >= ?;";
+    private static final String FIND_ACTUAL_LIKE_COUNTS_QUERY = "SELECT f.film_id, f.like_count, COUNT(l.user_id) AS actual" +
+            " FROM films AS f LEFT JOIN likes AS l ON l.film_id = f.film_id GROUP BY f.film_id, f.like_count;";
+
+    private final FilmPopularityIndex popularity = new FilmPopularityIndex();
+    private final TrendingIndex trending = new TrendingIndex();
+    private final LikeMatrix likeMatrix = new LikeMatrix();
+    private final FilmSearchIndex searchIndex = new FilmSearchIndex();
+    private final VersionCounter versions = new VersionCounter();
+    private LikeWriteBuffer likeBuffer;
+    private SqlDialect dialect;
+
+    @Autowired(required = false)
+    public void setLikeBuffer(LikeWriteBuffer likeBuffer) {
+        this.likeBuffer = likeBuffer;
+        likeBuffer.attach(popularity, trending, likeMatrix);
+    }
+
+    @PostConstruct
+    public void init() {
+        dialect = SqlDialect.of(jdbcTemplate);
+        rebuildPopularity();
+        searchIndex.reset(findAll());
+        log.info("Поисковый индекс построен: {}", searchIndex.stats());
+    }
 
 
     @Override
+    @Transactional
     public Film create(Film film) throws ValidationException, NotFoundException {
         log.debug("create film({})", film);
+        resolveGenres(film);
         KeyHolder keyHolder = new GeneratedKeyHolder();
 
         jdbcTemplate.update(
                 connection -> {
                     PreparedStatement ps = connection.prepareStatement(INSERT_QUERY, Statement.RETURN_GENERATED_KEYS);
-                    ps.setString(1, film.getName());
-                    ps.setString(2, film.getDescription());
-                    ps.setDate(3, java.sql.Date.valueOf(film.getReleaseDate()));
-                    ps.setInt(4, film.getDuration());
-                    ps.setInt(5, film.getMpa().getId());
+                    setFilmParameters(ps, film);
                     return ps;
                 },
                 keyHolder);
         film.setId(keyHolder.getKey().longValue());
+        saveGenres(List.of(film));
+        register(film.getId());
+        touch(film.getId());
+        reindex(film);
+        return film;
+    }
 
-        for (Genre genre1 : film.getGenres()) {
-            Genre g = genreStorage.findGenreById(genre1.getId())
-                    .orElseThrow(() -> new ValidationException("Genre not found"));
+    /**
+     * Пакетная вставка: фильмы уходят одним JDBC batch с возвратом сгенерированных ключей,
+     * жанры всех фильмов — вторым batch, всё в одной транзакции.
+     */
+    @Override
+    @Transactional
+    public List<Film> createAll(List<Film> films) throws ValidationException {
+        if (films.isEmpty()) {
+            return films;
         }
-
-        if (film.getGenres() != null) {
-            film.getGenres().forEach(g -> jdbcTemplate.update(INSERT_INTO_FILM_GENRE, film.getId(), g.getId()));
+        for (Film film : films) {
+            resolveGenres(film);
         }
-        return film;
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            try (PreparedStatement ps = connection.prepareStatement(INSERT_QUERY, Statement.RETURN_GENERATED_KEYS)) {
+                for (Film film : films) {
+                    setFilmParameters(ps, film);
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+                try (ResultSet keys = ps.getGeneratedKeys()) {
+                    int i = 0;
+                    while (keys.next() && i < films.size()) {
+                        films.get(i++).setId(keys.getLong(1));
+                    }
+                    if (i != films.size()) {
+                        throw new InternalServerException("Получено " + i + " ключей для " + films.size() + " фильмов");
+                    }
+                }
+            }
+            return null;
+        });
+        saveGenres(films);
+        films.forEach(film -> {
+            register(film.getId());
+            touch(film.getId());
+            reindex(film);
+        });
+        log.debug("Добавлено фильмов пакетом: {}", films.size());
+        return films;
     }
 
-
     @Override
+    @Transactional
     public Film update(Film film) throws NotFoundException, ValidationException {
-        Long id = film.getId();
+        resolveGenres(film);
         jdbcTemplate.update(
                 UPDATE_QUERY,
                 film.getName(),
@@ -98,24 +204,56 @@ public class FilmDbStorage implements FilmStorage {
                 film.getMpa().getId(),
                 film.getId()
         );
-        if (film.getGenres() != null) {
-            for (Genre genre : film.getGenres()) {
-                jdbcTemplate.update(INSERT_INTO_FILM_GENRE, film.getId());
-            }
-        }
-
-        findFilmById(film.getId());
+        jdbcTemplate.update(FILM_GENRE_DELETE_QUERY, film.getId());
+        saveGenres(List.of(film));
+        touch(film.getId());
+        reindex(film);
         return film;
     }
 
+    private void setFilmParameters(PreparedStatement ps, Film film) throws SQLException {
+        ps.setString(1, film.getName());
+        ps.setString(2, film.getDescription());
+        ps.setDate(3, java.sql.Date.valueOf(film.getReleaseDate()));
+        ps.setInt(4, film.getDuration());
+        ps.setInt(5, film.getMpa().getId());
+    }
+
+    /**
+     * Проверяет жанры по справочнику и подменяет их полными записями (с названиями).
+     */
+    private void resolveGenres(Film film) throws ValidationException {
+        Map<Integer, Genre> resolved = new TreeMap<>();
+        for (Genre genre : film.getGenres()) {
+            Genre known = genreStorage.findGenreById(genre.getId())
+                    .orElseThrow(() -> new ValidationException("Genre not found"));
+            resolved.put(known.getId(), known);
+        }
+        film.getGenres().clear();
+        film.getGenres().addAll(resolved.values());
+    }
+
+    private void saveGenres(List<Film> films) {
+        List<Object[]> rows = new ArrayList<>();
+        films.forEach(film -> film.getGenres().forEach(genre -> rows.add(new Object[]{film.getId(), genre.getId()})));
+        if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_INTO_FILM_GENRE, rows);
+        }
+    }
 
+    /**
+     * Читается с основной БД: по версии фильма строится ETag, а версия меняется после коммита на основной —
+     * с отстающей реплики под новым тегом ушло бы старое тело.
+     */
     @Override
     public Optional<Film> findFilmById(Long filmId) throws NotFoundException {
-        return jdbcTemplate.query(FIND_BY_ID_QUERY, (resultSet, rowNum) -> mapRowFilm(resultSet), filmId).stream().findFirst();
+        List<Film> films = jdbcTemplate.query(FIND_BY_ID_QUERY, (resultSet, rowNum) -> mapRowFilm(resultSet), filmId);
+        hydrate(films, false);
+        return films.stream().findFirst();
     }
 
     public Film mapRowFilm(ResultSet resultSet) throws SQLException {
-        Film film = Film.builder()
+        return Film.builder()
                 .id(resultSet.getLong("film_id"))
                 .name(resultSet.getString("name"))
                 .description(resultSet.getString("description"))
@@ -123,76 +261,321 @@ public class FilmDbStorage implements FilmStorage {
                 .duration(resultSet.getInt("duration"))
                 .mpa(new Mpa(resultSet.getInt("rating_id"), resultSet.getString("rating_name")))
                 .build();
-        List<Genre> filmsGenre = findFilmGenres(film.getId());
-        List<Integer> likes = getFilmLikes(film.getId());
-        for (Genre genre : filmsGenre) {
-            film.getGenres().add(genre);
+    }
+
+    /**
+     * Догружает жанры и лайки для уже выбранных фильмов: по одному запросу на таблицу
+     * вместо двух запросов на каждый фильм. Если загружен весь каталог, фильтр по id не нужен.
+     */
+    private void hydrate(List<Film> films, boolean wholeCatalog) {
+        if (films.isEmpty()) {
+            return;
         }
-        for (Integer like : likes) {
-            film.getLikes().add(Long.valueOf(like));
+        Map<Long, Film> filmsById = new HashMap<>();
+        films.forEach(film -> filmsById.put(film.getId(), film));
+
+        String genresQuery = FIND_GENRES_QUERY;
+        String likesQuery = FIND_LIKES_QUERY;
+        Object[] ids = {};
+        if (!wholeCatalog) {
+            String placeholders = String.join(", ", Collections.nCopies(filmsById.size(), "?"));
+            genresQuery += " WHERE fg.film_id IN (" + placeholders + ")";
+            likesQuery += " WHERE film_id IN (" + placeholders + ")";
+            ids = filmsById.keySet().toArray();
+        }
+
+        jdbcTemplate.query(genresQuery + " ORDER BY g.genre_id;",
+                (RowCallbackHandler) resultSet -> {
+                    Film film = filmsById.get(resultSet.getLong("film_id"));
+                    if (film != null) {
+                        film.getGenres().add(mapRowToGenre(resultSet, 0));
+                    }
+                }, ids);
+        jdbcTemplate.query(likesQuery + ";",
+                (RowCallbackHandler) resultSet -> {
+                    Film film = filmsById.get(resultSet.getLong("film_id"));
+                    if (film != null) {
+                        film.getLikes().add(resultSet.getLong("user_id"));
+                    }
+                }, ids);
+        if (likeBuffer != null) {
+            likeBuffer.overlay(films);
         }
-        return film;
     }
 
     private Genre mapRowToGenre(ResultSet resultSet, int rowNum) throws SQLException {
         return new Genre(resultSet.getInt("genre_id"), resultSet.getString("genre_name"));
     }
 
-    private Integer mapRowToLike(ResultSet resultSet, int rowNum) throws SQLException {
-        return resultSet.getInt("user_id");
+    @Override
+    @Transactional
+    public void addLike(Long filmId, Long userId) throws DuplicatedDataException, NotFoundException {
+        if (likeBuffer != null && likeBuffer.like(filmId, userId)) {
+            touch(filmId);
+            return;
+        }
+        Instant likedAt = trending.now();
+        int inserted = insertLike(filmId, userId, Timestamp.from(likedAt));
+        if (inserted == 0) {
+            // лайк уже стоит или нет фильма/пользователя — проверяем только в этом случае
+            checkLikeParticipants(filmId, userId);
+        }
+        changeLikeCount(filmId, inserted);
+        if (inserted > 0) {
+            AfterCommit.run(() -> trending.add(filmId, likedAt));
+            AfterCommit.run(() -> likeMatrix.set(userId, filmId, true));
+        }
+    }
+
+    @Override
+    @Transactional
+    public void deleteLike(Long filmId, Long userId) throws NotFoundException {
+        if (likeBuffer != null && likeBuffer.unlike(filmId, userId)) {
+            touch(filmId);
+            return;
+        }
+        // время лайка читается до удаления, чтобы снять его с той же корзины окна
+        List<Timestamp> likedAt = jdbcTemplate.queryForList(FIND_LIKE_TIME_QUERY, Timestamp.class, filmId, userId);
+        int deleted = likedAt.isEmpty() ? 0 : jdbcTemplate.update(DELETE_LIKE_QUERY, filmId, userId);
+        if (deleted == 0) {
+            checkLikeParticipants(filmId, userId);
+        }
+        changeLikeCount(filmId, -deleted);
+        if (deleted > 0) {
+            Instant removedAt = likedAt.get(0).toInstant();
+            AfterCommit.run(() -> trending.remove(filmId, removedAt));
+            AfterCommit.run(() -> likeMatrix.set(userId, filmId, false));
+        }
+    }
+
+    /**
+     * Вставляет лайк, если его ещё нет, и возвращает число вставленных строк. Повтор, в том числе параллельный,
+     * не бросает нарушение ключа: в PostgreSQL такая ошибка обрывает всю транзакцию. MERGE в H2 от параллельной
+     * вставки не защищён, поэтому там одинаковые лайки сначала выстраиваются в очередь на строке фильма.
+     */
+    private int insertLike(Long filmId, Long userId, Timestamp likedAt) {
+        if (dialect == SqlDialect.POSTGRESQL) {
+            return jdbcTemplate.update(INSERT_INTO_LIKES_POSTGRESQL, likedAt, filmId, userId);
+        }
+        jdbcTemplate.queryForList(LOCK_FILM_QUERY, Long.class, filmId);
+        return jdbcTemplate.update(INSERT_INTO_LIKES_H2, filmId, userId, likedAt);
     }
 
-    private List<Genre> findFilmGenres(long filmId) {
-        String findFilmGenresQuery = "SELECT fg.film_id, fg.genre_id, g.genre_name FROM film_genre fg" +
-                " JOIN genre g ON g.genre_id = fg.genre_id WHERE film_id = ? ORDER BY genre_id;";
-        return jdbcTemplate.query(findFilmGenresQuery, this::mapRowToGenre, filmId);
+    private void checkLikeParticipants(Long filmId, Long userId) throws NotFoundException {
+        if (!existsFilm(filmId)) {
+            throw new NotFoundException("Фильм Id:" + filmId + " не найден.");
+        }
+        if (!userStorage.existsUser(userId)) {
+            throw new NotFoundException("Пользователь Id:" + userId + " не найден.");
+        }
     }
 
-    private List<Integer> getFilmLikes(long filmId) {
-        String getFilmLikesQuery = "SELECT user_id FROM likes WHERE film_id = ?;";
-        return jdbcTemplate.query(getFilmLikesQuery, this::mapRowToLike, filmId);
+    private void changeLikeCount(Long filmId, int delta) {
+        if (delta != 0) {
+            jdbcTemplate.update(CHANGE_LIKE_COUNT_QUERY, delta, filmId);
+            AfterCommit.run(() -> popularity.adjust(filmId, delta));
+            touch(filmId);
+        }
+    }
+
+    /**
+     * Индекс популярности меняется только после коммита: откат вставки или счётчика
+     * не должен оставлять в /films/popular фильм или лайк, которых нет в БД.
+     */
+    private void register(long filmId) {
+        AfterCommit.run(() -> popularity.register(filmId));
+    }
+
+    /**
+     * Новая версия фильма становится видна только после коммита, иначе параллельный запрос
+     * мог бы закешировать старые данные под новым ETag.
+     */
+    private void touch(Long filmId) {
+        AfterCommit.run(() -> versions.touch(filmId));
+    }
+
+    /**
+     * Слова фильма попадают в поисковый индекс после коммита: откат не оставит в нём чужих слов.
+     */
+    private void reindex(Film film) {
+        long filmId = film.getId();
+        String name = film.getName();
+        String description = film.getDescription();
+        AfterCommit.run(() -> searchIndex.index(filmId, name, description));
     }
 
     @Override
-    public void addLike(Long filmId, Long userId) throws DuplicatedDataException, NotFoundException {
-        Optional<Film> film = findFilmById(filmId);
-        Optional<User> user = userStorage.findUserById(userId);
-        jdbcTemplate.update(INSERT_INTO_LIKES, filmId, userId);
+    public long version() {
+        return versions.version();
     }
 
     @Override
-    public void deleteLike(Long filmId, Long userId) throws NotFoundException {
-        Optional<Film> film = findFilmById(filmId);
-        Optional<User> user = userStorage.findUserById(userId);
-        jdbcTemplate.update(DELETE_LIKE_QUERY, filmId, userId);
+    public long version(Long filmId) {
+        return versions.version(filmId);
     }
 
     @Override
+    @ReplicaRead
     public List<Film> findAll() {
-        return jdbcTemplate.query(FIND_ALL_FILMS, (resultSet, rowNum) -> mapRowFilm(resultSet));
+        List<Film> films = jdbcTemplate.query(FIND_ALL_FILMS, (resultSet, rowNum) -> mapRowFilm(resultSet));
+        hydrate(films, true);
+        return films;
+    }
+
+    @Override
+    @ReplicaRead
+    public List<Film> findPage(Long afterId, int limit) {
+        List<Film> films = jdbcTemplate.query(FIND_PAGE_QUERY, (resultSet, rowNum) -> mapRowFilm(resultSet),
+                afterId == null ? 0 : afterId, limit);
+        hydrate(films, false);
+        return films;
+    }
+
+    /**
+     * Читает каталог курсором только вперёд и отдаёт фильмы пачками по STREAM_FETCH_SIZE:
+     * жанры и лайки догружаются на пачку, в памяти никогда не лежит больше одной пачки.
+     */
+    @Override
+    @ReplicaRead
+    @Transactional(readOnly = true)
+    public void streamAll(Consumer<Film> consumer) {
+        List<Film> chunk = new ArrayList<>(STREAM_FETCH_SIZE);
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(STREAM_ALL_QUERY,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(STREAM_FETCH_SIZE);
+            return ps;
+        }, (RowCallbackHandler) resultSet -> {
+            chunk.add(mapRowFilm(resultSet));
+            if (chunk.size() == STREAM_FETCH_SIZE) {
+                emit(chunk, consumer);
+            }
+        });
+        emit(chunk, consumer);
+    }
+
+    private void emit(List<Film> chunk, Consumer<Film> consumer) {
+        hydrate(chunk, false);
+        chunk.forEach(consumer);
+        chunk.clear();
     }
 
+    /**
+     * Рейтинги, рекомендации и поиск берут id из индексов в памяти, построенных по основной БД, и читают фильмы
+     * оттуда же: иначе отставшая реплика теряла бы только что созданные фильмы, а кэш популярных фильмов
+     * сохранял бы старые тела под новой версией.
+     */
     @Override
     public Collection<Film> findPopularFilms(Integer count) {
-        String sql = "SELECT f.film_id, f.name, f.description, f.releaseDate, f.duration, " +
-                "mpa.rating_id, mpa.rating_name AS mpa_name " +
-                "FROM films AS f " +
-                "INNER JOIN rating AS mpa ON f.rating_id = mpa.rating_id " +
-                "LEFT JOIN likes ON f.film_id = likes.film_id " +
-                "GROUP BY f.film_id " +
-                "ORDER BY COUNT(likes.film_id) DESC " +
-                "LIMIT ?";
+        return findFilmsByIds(popularity.top(count));
+    }
+
+    @Override
+    public Collection<Film> findTrendingFilms(Integer count, Duration window) {
+        return findFilmsByIds(trending.top(count, window));
+    }
+
+    @Override
+    public Collection<Film> findRecommendations(Long userId, int count) {
+        return findFilmsByIds(likeMatrix.recommend(userId, count));
+    }
+
+    @Override
+    public Collection<Film> searchFilms(String query, int count) {
+        return findFilmsByIds(searchIndex.search(query, count));
+    }
+
+    @Override
+    public FilmSearchIndex.Stats searchStats() {
+        return searchIndex.stats();
+    }
+
+    /**
+     * Один запрос IN на фильмы, жанры и лайки, независимо от числа id. С реплики читается только прямой вызов
+     * (GET /films?ids=); из методов этого класса запрос идёт туда же, куда и вызывающий метод.
+     */
+    @Override
+    @ReplicaRead
+    public List<Film> findFilmsByIds(List<Long> filmIds) {
+        if (filmIds.isEmpty()) {
+            return List.of();
+        }
+        String sql = String.format(FIND_BY_IDS_QUERY, String.join(", ", Collections.nCopies(filmIds.size(), "?")));
+        List<Film> films = jdbcTemplate.query(sql, (resultSet, rowNum) -> mapRowFilm(resultSet), filmIds.toArray());
+        hydrate(films, false);
+
+        Map<Long, Film> filmsById = new HashMap<>();
+        films.forEach(film -> filmsById.put(film.getId(), film));
+        return filmIds.stream()
+                .map(filmsById::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    @Override
+    public void rebuildPopularity() {
+        if (likeBuffer != null) {
+            likeBuffer.flush();
+        }
+        int films = jdbcTemplate.update(RECOUNT_LIKES_QUERY);
+        Map<Long, Long> likeCounts = new HashMap<>();
+        jdbcTemplate.query(FIND_LIKE_COUNTS_QUERY,
+                (RowCallbackHandler) resultSet -> likeCounts.put(resultSet.getLong("film_id"), resultSet.getLong("like_count")));
+        popularity.reset(likeCounts);
+        rebuildTrending();
+        rebuildLikeMatrix();
+        versions.touchAll();
+        log.info("Счётчики лайков пересчитаны для {} фильмов", films);
+    }
+
+    /**
+     * Окна заполняются только лайками не старше самого длинного окна — по индексу likes_created_idx.
+     */
+    private void rebuildTrending() {
+        trending.clear();
+        jdbcTemplate.query(FIND_RECENT_LIKES_QUERY, (RowCallbackHandler) resultSet ->
+                trending.add(resultSet.getLong("film_id"), resultSet.getTimestamp("created_at").toInstant()),
+                Timestamp.from(trending.horizon()));
+    }
+
+    private void rebuildLikeMatrix() {
+        Map<Long, IdSet> likesByUser = new HashMap<>();
+        jdbcTemplate.query(FIND_LIKES_QUERY + ";", (RowCallbackHandler) resultSet -> likesByUser
+                .computeIfAbsent(resultSet.getLong("user_id"), id -> new IdSet())
+                .add(resultSet.getLong("film_id")));
+        likeMatrix.reset(likesByUser);
+    }
 
-        return jdbcTemplate.query(sql, (resultSet, rowNum) -> mapRowFilm(resultSet), count);
+    @Override
+    public Map<Long, Long> verifyPopularity() {
+        if (likeBuffer != null) {
+            likeBuffer.flush();
+        }
+        Map<Long, Long> indexed = popularity.snapshot();
+        Map<Long, Long> mismatches = new HashMap<>();
+        jdbcTemplate.query(FIND_ACTUAL_LIKE_COUNTS_QUERY, (RowCallbackHandler) resultSet -> {
+            long filmId = resultSet.getLong("film_id");
+            long actual = resultSet.getLong("actual");
+            if (resultSet.getLong("like_count") != actual || indexed.getOrDefault(filmId, -1L) != actual) {
+                mismatches.put(filmId, actual);
+            }
+        });
+        if (!mismatches.isEmpty()) {
+            log.warn("Счётчики лайков расходятся с таблицей likes для фильмов {}", mismatches.keySet());
+        }
+        return mismatches;
     }
 
     @Override
     public boolean existFilmById(Long filmId) throws NotFoundException {
-        String sql = "SELECT EXISTS(SELECT 1 FROM films WHERE film_id = ?);";
-        if (Boolean.FALSE.equals(jdbcTemplate.queryForObject(sql, Boolean.class, filmId))) {
+        if (!existsFilm(filmId)) {
             throw new NotFoundException("Должен быть указан существующий id");
         }
         return true;
     }
+
+    private boolean existsFilm(Long filmId) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(EXISTS_QUERY, Boolean.class, filmId));
+    }
 }
 
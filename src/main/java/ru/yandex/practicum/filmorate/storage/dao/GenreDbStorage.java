@@ -3,6 +3,7 @@ package ru.yandex.practicum.filmorate.storage.dao;
 import lombok.RequiredArgsConstructor;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.jdbc.ReplicaRead;
 import ru.yandex.practicum.filmorate.model.Genre;
 import ru.yandex.practicum.filmorate.storage.GenreStorage;
 
@@ -18,17 +19,30 @@ public class GenreDbStorage implements GenreStorage {
     private final JdbcTemplate jdbcTemplate;
 
     @Override
+    @ReplicaRead
     public List<Genre> findAllGenres() {
         String queryForAllGenres = "SELECT * FROM genre ORDER BY genre_id";
         return jdbcTemplate.query(queryForAllGenres, (resultSet, rowNum) -> genreMapRow(resultSet));
     }
 
     @Override
+    @ReplicaRead
     public Optional<Genre> findGenreById(int id) {
         String queryForGenre = "SELECT * FROM genre WHERE genre_id = ?";
         return jdbcTemplate.query(queryForGenre, (resultSet, rowNum) -> genreMapRow(resultSet), id).stream().findFirst();
     }
 
+    @Override
+    public void refresh() {
+        // данные всегда читаются из БД, сбрасывать нечего
+    }
+
+    @Override
+    public long version() {
+        // справочник заполняется data.sql при старте и через API не меняется
+        return 0;
+    }
+
     private Genre genreMapRow(ResultSet resultSet) throws SQLException {
         return new Genre(resultSet.getInt("genre_id"), resultSet.getString("genre_name"));
     }
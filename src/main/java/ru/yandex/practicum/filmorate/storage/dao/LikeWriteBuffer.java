@@ -0,0 +1,471 @@
+package ru.yandex.practicum.filmorate.storage.dao;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.index.FilmPopularityIndex;
+import ru.yandex.practicum.filmorate.storage.index.LikeMatrix;
+import ru.yandex.practicum.filmorate.storage.index.TrendingIndex;
+
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Отложенная запись лайков (filmorate.likes.write-behind.enabled=true). Лайк и снятие лайка
+ * меняют желаемое состояние пары (фильм, пользователь) в памяти и сразу индекс популярности;
+ * повторные изменения одной пары до сброса схлопываются. Пакеты пишутся в БД раз в
+ * flush-interval-ms, от capacity пар — сразу в потоке планировщика, при остановке — полностью.
+ * Буфер держит не больше max-pending разных пар, включая пакет, который пишется сейчас: новая пара сверх
+ * предела не принимается ({@link #like} возвращает false) и пишется вызывающим напрямую, так что при
+ * недоступной БД буфер не растёт, а запросы получают ошибку записи.
+ * Окна популярности ({@link TrendingIndex}) меняются только после записи пакета, по фактически применённым строкам.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "filmorate.likes.write-behind.enabled", havingValue = "true")
+public class LikeWriteBuffer {
+    private static final String PROBE_QUERY = "SELECT (SELECT COUNT(*) FROM films WHERE film_id = ?) AS films, " +
+            "(SELECT COUNT(*) FROM users WHERE user_id = ?) AS users, " +
+            "(SELECT COUNT(*) FROM likes WHERE film_id = ? AND user_id = ?) AS likes;";
+    private static final String INSERT_LIKE_QUERY = "INSERT INTO likes (film_id, user_id, created_at) " +
+            "SELECT f.film_id, u.user_id, ? FROM films AS f, users AS u WHERE f.film_id = ? AND u.user_id = ? " +
+            "AND NOT EXISTS (SELECT 1 FROM likes WHERE film_id = ? AND user_id = ?);";
+    private static final String FIND_LIKE_TIMES_QUERY = "SELECT film_id, user_id, created_at FROM likes" +
+            " WHERE (film_id, user_id) IN (%s);";
+    private static final int FIND_LIKE_TIMES_CHUNK = 500;
+    private static final String DELETE_LIKE_QUERY = "DELETE FROM likes WHERE film_id = ? AND user_id = ?;";
+    private static final String CHANGE_LIKE_COUNT_QUERY = "UPDATE films SET like_count = like_count + ? WHERE film_id = ?;";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final long flushIntervalMs;
+    private final int capacity;
+    private final int maxPending;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final Timer flushTimer;
+    private final Counter insertedCounter;
+    private final Counter deletedCounter;
+    private final Counter coalescedCounter;
+    private final Counter errorCounter;
+    private final Counter bypassedCounter;
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private ScheduledExecutorService scheduler;
+    private FilmPopularityIndex popularity;
+    private TrendingIndex trending;
+    private LikeMatrix likeMatrix;
+
+    // filmId -> userId -> изменение; inFlight — пакет, который пишется сейчас
+    private Map<Long, Map<Long, Change>> pending = new HashMap<>();
+    private Map<Long, Map<Long, Change>> inFlight = Map.of();
+    private volatile int pendingSize;
+    private int inFlightSize;
+    // пары, которые есть и в pending, и в inFlight: разных пар в буфере pendingSize + inFlightSize - overlap
+    private int overlap;
+
+    public LikeWriteBuffer(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                           MeterRegistry meterRegistry,
+                           @Value("${filmorate.likes.write-behind.flush-interval-ms:200}") long flushIntervalMs,
+                           @Value("${filmorate.likes.write-behind.capacity:10000}") int capacity,
+                           @Value("${filmorate.likes.write-behind.max-pending:50000}") int maxPending) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // пакет пишется своей транзакцией, даже если сброс вызван изнутри чужой
+        transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.flushIntervalMs = flushIntervalMs;
+        this.capacity = capacity;
+        this.maxPending = maxPending;
+        this.flushTimer = Timer.builder("filmorate.likes.buffer.flush")
+                .description("Время сброса буфера лайков в БД")
+                .register(meterRegistry);
+        this.insertedCounter = Counter.builder("filmorate.likes.buffer.written").tag("operation", "insert")
+                .register(meterRegistry);
+        this.deletedCounter = Counter.builder("filmorate.likes.buffer.written").tag("operation", "delete")
+                .register(meterRegistry);
+        this.coalescedCounter = Counter.builder("filmorate.likes.buffer.coalesced")
+                .description("Изменения, схлопнутые с уже ожидающими записи")
+                .register(meterRegistry);
+        this.errorCounter = Counter.builder("filmorate.likes.buffer.errors").register(meterRegistry);
+        this.bypassedCounter = Counter.builder("filmorate.likes.buffer.bypassed")
+                .description("Изменения, записанные напрямую из-за полного буфера")
+                .register(meterRegistry);
+        meterRegistry.gauge("filmorate.likes.buffer.pending", this, buffer -> buffer.pendingSize);
+    }
+
+    void attach(FilmPopularityIndex popularity, TrendingIndex trending, LikeMatrix likeMatrix) {
+        this.popularity = popularity;
+        this.trending = trending;
+        this.likeMatrix = likeMatrix;
+    }
+
+    @PostConstruct
+    public void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "like-write-behind");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+        log.info("Отложенная запись лайков включена: сброс раз в {} мс или от {} пар, не больше {} пар",
+                flushIntervalMs, capacity, maxPending);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (scheduler != null) {
+            scheduler.shutdown();
+            scheduler.awaitTermination(10, TimeUnit.SECONDS);
+        }
+        flush();
+        log.info("Буфер лайков сброшен при остановке");
+    }
+
+    /**
+     * @return false, если буфер полон и лайк нужно записать напрямую
+     */
+    public boolean like(long filmId, long userId) throws NotFoundException {
+        return change(filmId, userId, true);
+    }
+
+    /**
+     * @return false, если буфер полон и лайк нужно снять напрямую
+     */
+    public boolean unlike(long filmId, long userId) throws NotFoundException {
+        return change(filmId, userId, false);
+    }
+
+    private boolean change(long filmId, long userId, boolean liked) throws NotFoundException {
+        if (apply(filmId, userId, liked, null) == Outcome.BUFFERED) {
+            return true;
+        }
+        // пара встречается впервые: одним запросом проверяем фильм, пользователя и текущий лайк
+        Map<String, Object> probe = jdbcTemplate.queryForMap(PROBE_QUERY, filmId, userId, filmId, userId);
+        if (((Number) probe.get("films")).longValue() == 0) {
+            throw new NotFoundException("Фильм Id:" + filmId + " не найден.");
+        }
+        if (((Number) probe.get("users")).longValue() == 0) {
+            throw new NotFoundException("Пользователь Id:" + userId + " не найден.");
+        }
+        if (apply(filmId, userId, liked, ((Number) probe.get("likes")).longValue() > 0) == Outcome.FULL) {
+            bypassedCounter.increment();
+            return false;
+        }
+        if (pendingSize >= capacity) {
+            requestFlush();
+        }
+        return true;
+    }
+
+    /**
+     * Переполненный буфер сбрасывает поток планировщика, а не поток запроса: иначе сбой записи пакета
+     * вернул бы ошибку на уже применённый в памяти лайк, а запрос держал бы второе соединение из пула.
+     */
+    private void requestFlush() {
+        if (scheduler == null) {
+            flushQuietly();
+        } else if (flushRequested.compareAndSet(false, true)) {
+            scheduler.execute(() -> {
+                flushRequested.set(false);
+                flushQuietly();
+            });
+        }
+    }
+
+    /**
+     * Меняет желаемое состояние пары. Без известного состояния в БД (persisted == null) срабатывает,
+     * только если пара уже в буфере или сейчас пишется; новую пару не принимает, если буфер полон.
+     */
+    private Outcome apply(long filmId, long userId, boolean liked, Boolean persisted) {
+        lock.lock();
+        try {
+            Change change = pending.getOrDefault(filmId, Map.of()).get(userId);
+            boolean before;
+            if (change != null) {
+                before = change.liked;
+                change.liked = liked;
+                coalescedCounter.increment();
+            } else {
+                Change writing = inFlight.getOrDefault(filmId, Map.of()).get(userId);
+                if (writing == null && persisted == null) {
+                    return Outcome.UNKNOWN;
+                }
+                if (writing == null && pendingSize + inFlightSize - overlap >= maxPending) {
+                    return Outcome.FULL;
+                }
+                before = writing != null ? writing.liked : persisted;
+                change = new Change(before, liked);
+                pending.computeIfAbsent(filmId, id -> new HashMap<>()).put(userId, change);
+                pendingSize++;
+                if (writing != null) {
+                    overlap++;
+                }
+            }
+            if (before != liked) {
+                popularity.adjust(filmId, liked ? 1 : -1);
+                likeMatrix.set(userId, filmId, liked);
+                if (liked) {
+                    change.likedAt = trending.now();
+                }
+            }
+            return Outcome.BUFFERED;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Накладывает ещё не записанные изменения на лайки загруженных из БД фильмов.
+     */
+    void overlay(List<Film> films) {
+        lock.lock();
+        try {
+            if (pending.isEmpty() && inFlight.isEmpty()) {
+                return;
+            }
+            for (Film film : films) {
+                overlay(film, inFlight.get(film.getId()));
+                overlay(film, pending.get(film.getId()));
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void overlay(Film film, Map<Long, Change> changes) {
+        if (changes == null) {
+            return;
+        }
+        changes.forEach((userId, change) -> {
+            if (change.liked) {
+                film.getLikes().add(userId);
+            } else {
+                film.getLikes().remove(userId);
+            }
+        });
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.error("Не удалось сбросить буфер лайков", e);
+        }
+    }
+
+    public void flush() {
+        flushLock.lock();
+        try {
+            Map<Long, Map<Long, Change>> batch;
+            lock.lock();
+            try {
+                if (pending.isEmpty()) {
+                    return;
+                }
+                batch = pending;
+                inFlight = batch;
+                inFlightSize = pendingSize;
+                overlap = 0;
+                pending = new HashMap<>();
+                pendingSize = 0;
+            } finally {
+                lock.unlock();
+            }
+            flushTimer.record(() -> write(batch));
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void write(Map<Long, Map<Long, Change>> batch) {
+        List<Object[]> inserts = new ArrayList<>();
+        List<Object[]> deletes = new ArrayList<>();
+        Map<Long, Long> expected = new HashMap<>();
+        batch.forEach((filmId, changes) -> changes.forEach((userId, change) -> {
+            if (change.liked && !change.persisted) {
+                inserts.add(new Object[]{Timestamp.from(change.likedAt), filmId, userId, filmId, userId});
+                expected.merge(filmId, 1L, Long::sum);
+            } else if (!change.liked && change.persisted) {
+                deletes.add(new Object[]{filmId, userId});
+                expected.merge(filmId, -1L, Long::sum);
+            }
+        }));
+        List<WindowChange> windowChanges = new ArrayList<>();
+        // пары (фильм, пользователь), которые БД не изменила
+        List<Object[]> skipped = new ArrayList<>();
+        Map<Long, Long> actual;
+        try {
+            actual = transactionTemplate.execute(status -> {
+                Map<Long, Long> deltas = new HashMap<>();
+                Map<List<Long>, Instant> likeTimes = findLikeTimes(deletes);
+                // в строке вставки первым параметром идёт время лайка
+                forApplied(jdbcTemplate.batchUpdate(INSERT_LIKE_QUERY, inserts), inserts, row -> {
+                    deltas.merge((Long) row[1], 1L, Long::sum);
+                    windowChanges.add(new WindowChange((Long) row[1], ((Timestamp) row[0]).toInstant(), true));
+                }, row -> skipped.add(new Object[]{row[1], row[2]}));
+                forApplied(jdbcTemplate.batchUpdate(DELETE_LIKE_QUERY, deletes), deletes, row -> {
+                    deltas.merge((Long) row[0], -1L, Long::sum);
+                    Instant likedAt = likeTimes.get(List.of((Long) row[0], (Long) row[1]));
+                    windowChanges.add(new WindowChange((Long) row[0], likedAt, false));
+                }, skipped::add);
+                jdbcTemplate.batchUpdate(CHANGE_LIKE_COUNT_QUERY, deltas.entrySet().stream()
+                        .filter(delta -> delta.getValue() != 0)
+                        .map(delta -> new Object[]{delta.getValue(), delta.getKey()})
+                        .toList());
+                return deltas;
+            });
+        } catch (RuntimeException e) {
+            errorCounter.increment();
+            requeue(batch);
+            throw e;
+        }
+        windowChanges.forEach(change -> {
+            if (change.liked()) {
+                trending.add(change.filmId(), change.likedAt());
+            } else if (change.likedAt() != null) {
+                trending.remove(change.filmId(), change.likedAt());
+            }
+        });
+        long inserted = windowChanges.stream().filter(WindowChange::liked).count();
+        insertedCounter.increment(inserted);
+        deletedCounter.increment(windowChanges.size() - inserted);
+        // изменения, которые БД не применила (например, пару уже записали напрямую), откатываем в индексе
+        expected.forEach((filmId, delta) -> {
+            long correction = actual.getOrDefault(filmId, 0L) - delta;
+            if (correction != 0) {
+                popularity.adjust(filmId, correction);
+            }
+        });
+        lock.lock();
+        try {
+            inFlight = Map.of();
+            inFlightSize = 0;
+            overlap = 0;
+        } finally {
+            lock.unlock();
+        }
+        reconcileLikeMatrix(skipped);
+    }
+
+    private static void forApplied(int[] results, List<Object[]> rows, Consumer<Object[]> applied,
+                                   Consumer<Object[]> skipped) {
+        for (int i = 0; i < results.length; i++) {
+            if (results[i] == Statement.SUCCESS_NO_INFO || results[i] > 0) {
+                applied.accept(rows.get(i));
+            } else {
+                skipped.accept(rows.get(i));
+            }
+        }
+    }
+
+    /**
+     * Пары, которые БД не изменила (лайк уже записан напрямую, фильм или пользователь удалён), приводятся
+     * в матрице лайков к состоянию БД. Пары с более новым изменением в буфере не трогаются.
+     */
+    private void reconcileLikeMatrix(List<Object[]> skipped) {
+        if (skipped.isEmpty()) {
+            return;
+        }
+        Set<List<Long>> persisted = findLikeTimes(skipped).keySet();
+        lock.lock();
+        try {
+            for (Object[] pair : skipped) {
+                long filmId = (Long) pair[0];
+                long userId = (Long) pair[1];
+                if (!pending.getOrDefault(filmId, Map.of()).containsKey(userId)) {
+                    likeMatrix.set(userId, filmId, persisted.contains(List.of(filmId, userId)));
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Время лайков для пар {filmId, userId}, которые есть в БД: один запрос на FIND_LIKE_TIMES_CHUNK пар.
+     * По нему удаляемые лайки снимаются с тех же корзин окна.
+     */
+    private Map<List<Long>, Instant> findLikeTimes(List<Object[]> deletes) {
+        Map<List<Long>, Instant> likeTimes = new HashMap<>();
+        for (int from = 0; from < deletes.size(); from += FIND_LIKE_TIMES_CHUNK) {
+            List<Object[]> chunk = deletes.subList(from, Math.min(from + FIND_LIKE_TIMES_CHUNK, deletes.size()));
+            String sql = String.format(FIND_LIKE_TIMES_QUERY, String.join(", ", Collections.nCopies(chunk.size(), "(?, ?)")));
+            Object[] params = chunk.stream().flatMap(Arrays::stream).toArray();
+            jdbcTemplate.query(sql, (RowCallbackHandler) resultSet ->
+                    likeTimes.put(List.of(resultSet.getLong("film_id"), resultSet.getLong("user_id")),
+                            resultSet.getTimestamp("created_at").toInstant()), params);
+        }
+        return likeTimes;
+    }
+
+    private void requeue(Map<Long, Map<Long, Change>> batch) {
+        lock.lock();
+        try {
+            batch.forEach((filmId, changes) -> changes.forEach((userId, change) -> {
+                Map<Long, Change> filmChanges = pending.computeIfAbsent(filmId, id -> new HashMap<>());
+                Change newer = filmChanges.get(userId);
+                if (newer != null) {
+                    newer.persisted = change.persisted;
+                    if (newer.likedAt == null) {
+                        newer.likedAt = change.likedAt;
+                    }
+                } else {
+                    filmChanges.put(userId, change);
+                    pendingSize++;
+                }
+            }));
+            inFlight = Map.of();
+            inFlightSize = 0;
+            overlap = 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static final class Change {
+        private boolean persisted;
+        private boolean liked;
+        private Instant likedAt;
+
+        private Change(boolean persisted, boolean liked) {
+            this.persisted = persisted;
+            this.liked = liked;
+        }
+    }
+
+    private record WindowChange(long filmId, Instant likedAt, boolean liked) {
+    }
+
+    private enum Outcome {
+        BUFFERED,
+        // пары нет в буфере, а её состояние в БД ещё не проверено
+        UNKNOWN,
+        FULL
+    }
+}
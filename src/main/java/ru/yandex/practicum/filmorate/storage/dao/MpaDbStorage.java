@@ -3,6 +3,7 @@ package ru.yandex.practicum.filmorate.storage.dao;
 import lombok.RequiredArgsConstructor;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.jdbc.ReplicaRead;
 import ru.yandex.practicum.filmorate.model.Mpa;
 import ru.yandex.practicum.filmorate.storage.MpaStorage;
 
@@ -22,16 +23,29 @@ public class MpaDbStorage implements MpaStorage {
 
 
     @Override
+    @ReplicaRead
     public List<Mpa> findAllMpa() {
         return jdbcTemplate.query(FIND_ALL_MPA, (resultSet, rowNum) -> mpaMapRow(resultSet));
     }
 
     @Override
+    @ReplicaRead
     public Optional<Mpa> findMpaById(Integer id) {
         String mpaQuery = "SELECT * FROM rating WHERE rating_id =?";
         return jdbcTemplate.query(mpaQuery, (resultSet, rowNum) -> mpaMapRow(resultSet), id).stream().findFirst();
     }
 
+    @Override
+    public void refresh() {
+        // данные всегда читаются из БД, сбрасывать нечего
+    }
+
+    @Override
+    public long version() {
+        // справочник заполняется data.sql при старте и через API не меняется
+        return 0;
+    }
+
     private Mpa mpaMapRow(ResultSet resultSet) throws SQLException {
         int id = resultSet.getInt("rating_id");
         String name = resultSet.getString("rating_name");
@@ -41,6 +55,7 @@ public class MpaDbStorage implements MpaStorage {
     private static final String FIND_MPA_COUNT = "SELECT COUNT(rating_id) AS cnt FROM rating;";
 
     @Override
+    @ReplicaRead
     public Integer findMpaCount() {
         return jdbcTemplate.queryForObject(FIND_MPA_COUNT, Integer.class);
     }
@@ -1,23 +1,36 @@
 package ru.yandex.practicum.filmorate.storage.dao;
 
+import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
 import ru.yandex.practicum.filmorate.exception.DuplicatedDataException;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.jdbc.ReplicaRead;
+import ru.yandex.practicum.filmorate.jdbc.SqlDialect;
 import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.storage.UserStorage;
+import ru.yandex.practicum.filmorate.storage.index.FriendGraph;
 
 import java.sql.Date;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 @Slf4j
 @Component("UserDbStorage")
@@ -30,23 +43,74 @@ public class UserDbStorage implements UserStorage {
     }
 
     private static final String FIND_ALL_QUERY = "SELECT * FROM users";
+    private static final String FIND_PAGE_QUERY = "SELECT * FROM users WHERE user_id > ? ORDER BY user_id LIMIT ?";
+    private static final String FIND_FRIENDS_PAGE_QUERY = "SELECT u.user_id, u.email, u.login, u.name, u.birthday " +
+            "FROM friends AS f INNER JOIN users AS u ON u.user_id = f.friend_id " +
+            "WHERE f.user_id = ? AND u.user_id > ? ORDER BY u.user_id LIMIT ?";
+    private static final String STREAM_ALL_QUERY = "SELECT * FROM users ORDER BY user_id";
+    private static final int STREAM_FETCH_SIZE = 500;
     private static final String FIND_BY_ID_QUERY = "SELECT * FROM users WHERE user_id = ?";
     private static final String INSERT_QUERY = "INSERT INTO users (email, login, name, birthday) "
             + "VALUES (?, ?, ?, ?)";
     private static final String UPDATE_QUERY = "UPDATE users SET email = ?, login = ?, name = ?, birthday = ?" +
             " WHERE user_id = ?";
-    private static final String ADD_FRIEND_QUERY = "INSERT INTO friends (user_id, friend_id, status) VALUES (?, ?, false)";
-    private static final String DELETE_USER_QUERY = "DELETE FROM \"USER\" WHERE USER_ID = ?;";
-    private static final String MUTUAL_F_QUERY = "SELECT * FROM user AS u WHERE u.user_id IN (SELECT f.friend_id " +
-            "FROM friends AS f WHERE f.user_id = ? " +
-            "INTERSECT SELECT f.friend_id FROM friends AS f WHERE f.user_id = ?);";
+    private static final String EXISTS_QUERY = "SELECT EXISTS(SELECT 1 FROM users WHERE user_id = ?)";
+    private static final String ADD_FRIEND_H2_QUERY = "MERGE INTO friends AS fr USING (SELECT u.user_id, f.user_id " +
+            "AS friend_id FROM users AS u, users AS f WHERE u.user_id = ? AND f.user_id = ?) AS s " +
+            "ON fr.user_id = s.user_id AND fr.friend_id = s.friend_id " +
+            "WHEN NOT MATCHED THEN INSERT (user_id, friend_id, status) VALUES (s.user_id, s.friend_id, false)";
+    private static final String LOCK_USER_QUERY = "SELECT user_id FROM users WHERE user_id = ? FOR UPDATE";
+    private static final String ADD_FRIEND_POSTGRESQL_QUERY = "INSERT INTO friends (user_id, friend_id, status) " +
+            "SELECT u.user_id, f.user_id, false FROM users AS u, users AS f WHERE u.user_id = ? AND f.user_id = ? " +
+            "ON CONFLICT (user_id, friend_id) DO NOTHING";
+    private static final String DELETE_FRIEND_QUERY = "DELETE FROM friends WHERE user_id = ? AND friend_id = ?";
+    private static final String DELETE_USER_QUERY = "DELETE FROM users WHERE user_id = ?";
+    private static final String FIND_BY_IDS_QUERY = "SELECT * FROM users WHERE user_id IN (%s)";
+    private static final String FIND_FRIEND_EDGES_QUERY = "SELECT user_id, friend_id FROM friends";
 
 
+    private final FriendGraph friendGraph = new FriendGraph();
+    private SqlDialect dialect;
+
+    @PostConstruct
+    public void init() {
+        dialect = SqlDialect.of(jdbcTemplate);
+        Map<Long, List<Long>> edges = new HashMap<>();
+        jdbcTemplate.query(FIND_FRIEND_EDGES_QUERY, (RowCallbackHandler) resultSet -> edges
+                .computeIfAbsent(resultSet.getLong("user_id"), id -> new ArrayList<>())
+                .add(resultSet.getLong("friend_id")));
+        Map<Long, long[]> adjacency = new HashMap<>();
+        edges.forEach((userId, friendIds) -> adjacency.put(userId,
+                friendIds.stream().mapToLong(Long::longValue).toArray()));
+        friendGraph.reset(adjacency);
+        log.info("Граф дружбы загружен: {} пользователей с друзьями", adjacency.size());
+    }
+
     @Override
+    @ReplicaRead
     public List<User> findAll() {
         return jdbcTemplate.query(FIND_ALL_QUERY, (resultSet, rowNum) -> mapRow(resultSet));
     }
 
+    @Override
+    @ReplicaRead
+    public List<User> findPage(Long afterId, int limit) {
+        return jdbcTemplate.query(FIND_PAGE_QUERY, (resultSet, rowNum) -> mapRow(resultSet),
+                afterId == null ? 0 : afterId, limit);
+    }
+
+    @Override
+    @ReplicaRead
+    @Transactional(readOnly = true)
+    public void streamAll(Consumer<User> consumer) {
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(STREAM_ALL_QUERY,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(STREAM_FETCH_SIZE);
+            return ps;
+        }, (RowCallbackHandler) resultSet -> consumer.accept(mapRow(resultSet)));
+    }
+
     @Override
     public User create(User user) {
         KeyHolder keyHolder = new GeneratedKeyHolder();
@@ -77,6 +141,7 @@ public class UserDbStorage implements UserStorage {
     }
 
     @Override
+    @ReplicaRead
     public Optional<User> findUserById(Long userId) throws NotFoundException {
         return jdbcTemplate.query(FIND_BY_ID_QUERY, (resultSet, rowNun) -> mapRow(resultSet), userId).stream().findFirst();
     }
@@ -93,8 +158,20 @@ public class UserDbStorage implements UserStorage {
     }
 
     @Override
+    public boolean existsUser(Long userId) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(EXISTS_QUERY, Boolean.class, userId));
+    }
+
+    @Override
+    @Transactional
     public void addFriend(Long userId, Long friendId) throws NotFoundException {
-        jdbcTemplate.update(ADD_FRIEND_QUERY, userId, friendId);
+        int inserted = insertFriend(userId, friendId);
+        if (inserted == 0) {
+            // заявка уже есть или нет одного из пользователей — проверяем только в этом случае
+            checkUsers(userId, friendId);
+        } else {
+            AfterCommit.run(() -> friendGraph.add(userId, friendId));
+        }
     }
 
     @Override
@@ -104,12 +181,35 @@ public class UserDbStorage implements UserStorage {
     }
 
     @Override
+    @Transactional
     public void deleteFriend(Long userId, Long friendId) throws NotFoundException {
-        String removeFriendQuery = "DELETE FROM friends WHERE user_id = ? AND friend_id = ?";
-        int count = jdbcTemplate.update(removeFriendQuery, userId, friendId);
+        if (jdbcTemplate.update(DELETE_FRIEND_QUERY, userId, friendId) == 0) {
+            checkUsers(userId, friendId);
+        } else {
+            AfterCommit.run(() -> friendGraph.remove(userId, friendId));
+        }
+    }
+
+    /**
+     * Вставляет заявку, если её ещё нет, и возвращает число вставленных строк — без нарушения ключа при повторе,
+     * как и вставка лайка в {@link FilmDbStorage}. В H2 параллельные заявки ждут друг друга на строке пользователя.
+     */
+    private int insertFriend(Long userId, Long friendId) {
+        if (dialect == SqlDialect.POSTGRESQL) {
+            return jdbcTemplate.update(ADD_FRIEND_POSTGRESQL_QUERY, userId, friendId);
+        }
+        jdbcTemplate.queryForList(LOCK_USER_QUERY, Long.class, userId);
+        return jdbcTemplate.update(ADD_FRIEND_H2_QUERY, userId, friendId);
+    }
+
+    private void checkUsers(Long userId, Long friendId) throws NotFoundException {
+        if (!existsUser(userId) || !existsUser(friendId)) {
+            throw new NotFoundException("Пользователь не найден.");
+        }
     }
 
     @Override
+    @ReplicaRead
     public List<User> findAllFriends(Long userId) throws NotFoundException {
         String findAllFriendsQuery = "SELECT u.user_id, u.email, u.login, u.name, u.birthday " +
                 "FROM friends AS f INNER JOIN users AS u ON u.user_id = f.friend_id " +
@@ -117,14 +217,50 @@ public class UserDbStorage implements UserStorage {
         return jdbcTemplate.query(findAllFriendsQuery, (resultSet, rowNun) -> mapRow(resultSet), userId);
     }
 
+    @Override
+    @ReplicaRead
+    public List<User> findFriendsPage(Long userId, Long afterId, int limit) {
+        return jdbcTemplate.query(FIND_FRIENDS_PAGE_QUERY, (resultSet, rowNun) -> mapRow(resultSet),
+                userId, afterId == null ? 0 : afterId, limit);
+    }
+
     @Override
     public List<User> findMutualFriends(Long userId, Long friendId) {
-        return jdbcTemplate.query(MUTUAL_F_QUERY, (resultSet, rowNun) -> mapRow(resultSet), userId, friendId);
+        return findUsersByIds(friendGraph.mutual(userId, friendId));
     }
 
     @Override
+    public List<User> findFriendSuggestions(Long userId, int limit, int maxEdges, long deadline) {
+        return findUsersByIds(friendGraph.suggestions(userId, limit, maxEdges, deadline));
+    }
+
+    @Override
+    @ReplicaRead
+    public List<User> findUsersByIds(List<Long> userIds) {
+        return findUsersByIds(userIds.stream().mapToLong(Long::longValue).toArray());
+    }
+
+    private List<User> findUsersByIds(long[] userIds) {
+        if (userIds.length == 0) {
+            return List.of();
+        }
+        String sql = String.format(FIND_BY_IDS_QUERY, String.join(", ", Collections.nCopies(userIds.length, "?")));
+        List<User> users = jdbcTemplate.query(sql, (resultSet, rowNum) -> mapRow(resultSet),
+                Arrays.stream(userIds).boxed().toArray());
+        Map<Long, User> usersById = new HashMap<>();
+        users.forEach(user -> usersById.put(user.getId(), user));
+        return Arrays.stream(userIds)
+                .mapToObj(usersById::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    @Override
+    @Transactional
     public void deleteUser(Long userId) {
-        jdbcTemplate.update(DELETE_USER_QUERY, userId);
+        if (jdbcTemplate.update(DELETE_USER_QUERY, userId) > 0) {
+            AfterCommit.run(() -> friendGraph.removeUser(userId));
+        }
     }
 
     @Override
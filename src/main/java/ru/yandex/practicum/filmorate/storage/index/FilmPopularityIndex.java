@@ -0,0 +1,109 @@
+package ru.yandex.practicum.filmorate.storage.index;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Индекс популярности фильмов: счётчик лайков на фильм и множество, отсортированное
+ * по убыванию лайков (при равенстве — по id), поэтому топ-N читается без сортировки.
+ */
+public class FilmPopularityIndex {
+    private final Map<Long, Long> counts = new HashMap<>();
+    private final NavigableSet<Entry> ranking = new TreeSet<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public void register(long filmId) {
+        lock.writeLock().lock();
+        try {
+            if (counts.putIfAbsent(filmId, 0L) == null) {
+                ranking.add(new Entry(filmId, 0));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void adjust(long filmId, long delta) {
+        lock.writeLock().lock();
+        try {
+            long current = counts.getOrDefault(filmId, 0L);
+            long updated = Math.max(0, current + delta);
+            ranking.remove(new Entry(filmId, current));
+            ranking.add(new Entry(filmId, updated));
+            counts.put(filmId, updated);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void reset(Map<Long, Long> likeCounts) {
+        lock.writeLock().lock();
+        try {
+            counts.clear();
+            ranking.clear();
+            likeCounts.forEach((filmId, likes) -> {
+                counts.put(filmId, likes);
+                ranking.add(new Entry(filmId, likes));
+            });
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public List<Long> top(int count) {
+        lock.readLock().lock();
+        try {
+            List<Long> filmIds = new ArrayList<>(Math.min(count, ranking.size()));
+            for (Entry entry : ranking) {
+                if (filmIds.size() == count) {
+                    break;
+                }
+                filmIds.add(entry.filmId());
+            }
+            return filmIds;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public boolean contains(long filmId) {
+        lock.readLock().lock();
+        try {
+            return counts.containsKey(filmId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long likes(long filmId) {
+        lock.readLock().lock();
+        try {
+            return counts.getOrDefault(filmId, 0L);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Map<Long, Long> snapshot() {
+        lock.readLock().lock();
+        try {
+            return new HashMap<>(counts);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private record Entry(long filmId, long likes) implements Comparable<Entry> {
+        @Override
+        public int compareTo(Entry other) {
+            int byLikes = Long.compare(other.likes, likes);
+            return byLikes != 0 ? byLikes : Long.compare(filmId, other.filmId);
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package ru.yandex.practicum.filmorate.storage.index;
+
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.IdSet;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Обратный индекс по названию и описанию фильмов: слово в нижнем регистре → фильмы, где оно встречается
+ * в названии и в описании ({@link IdSet}). Словарь отсортирован, поэтому слово запроса ищется и как префикс.
+ * Фильм попадает в выдачу, только если содержит все слова запроса; вес совпадения в названии выше,
+ * чем в описании, точное совпадение слова весит вдвое больше совпадения по префиксу.
+ */
+public class FilmSearchIndex {
+    private static final int NAME_WEIGHT = 3;
+    private static final int DESCRIPTION_WEIGHT = 1;
+    // более короткие слова запроса ищутся только точным совпадением
+    private static final int MIN_PREFIX_LENGTH = 2;
+    private static final int MAX_PREFIX_TERMS = 1024;
+    // примерные накладные расходы на слово словаря (узел TreeMap, Postings, строка) и на фильм (запись и массив)
+    private static final long TERM_OVERHEAD_BYTES = 120;
+    private static final long FILM_OVERHEAD_BYTES = 64;
+    private static final Comparator<long[]> WORST_FIRST = Comparator.<long[]>comparingLong(entry -> entry[1])
+            .thenComparing(entry -> entry[0], Comparator.reverseOrder());
+
+    private final NavigableMap<String, Postings> terms = new TreeMap<>();
+    private final Map<Long, String[]> termsByFilm = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Слова текста без повторов: буквы и цифры в нижнем регистре, «ё» приравнивается к «е».
+     */
+    public static List<String> tokenize(String text) {
+        if (text == null || text.isEmpty()) {
+            return List.of();
+        }
+        Set<String> tokens = new LinkedHashSet<>();
+        String normalized = text.toLowerCase(Locale.ROOT).replace('ё', 'е');
+        int start = -1;
+        for (int i = 0; i <= normalized.length(); i++) {
+            boolean wordChar = i < normalized.length() && Character.isLetterOrDigit(normalized.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                tokens.add(normalized.substring(start, i));
+                start = -1;
+            }
+        }
+        return new ArrayList<>(tokens);
+    }
+
+    /**
+     * Добавляет фильм или заменяет его прежние слова новыми.
+     */
+    public void index(long filmId, String name, String description) {
+        lock.writeLock().lock();
+        try {
+            put(filmId, name, description);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void reset(Collection<Film> films) {
+        lock.writeLock().lock();
+        try {
+            terms.clear();
+            termsByFilm.clear();
+            films.forEach(film -> put(film.getId(), film.getName(), film.getDescription()));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void put(long filmId, String name, String description) {
+        remove(filmId);
+        Set<String> filmTerms = new LinkedHashSet<>();
+        for (String token : tokenize(name)) {
+            Postings postings = terms.computeIfAbsent(token, Postings::new);
+            postings.names.add(filmId);
+            filmTerms.add(postings.term);
+        }
+        for (String token : tokenize(description)) {
+            Postings postings = terms.computeIfAbsent(token, Postings::new);
+            postings.descriptions.add(filmId);
+            filmTerms.add(postings.term);
+        }
+        if (!filmTerms.isEmpty()) {
+            termsByFilm.put(filmId, filmTerms.toArray(String[]::new));
+        }
+    }
+
+    private void remove(long filmId) {
+        String[] filmTerms = termsByFilm.remove(filmId);
+        if (filmTerms == null) {
+            return;
+        }
+        for (String term : filmTerms) {
+            Postings postings = terms.get(term);
+            postings.names.remove(filmId);
+            postings.descriptions.remove(filmId);
+            if (postings.names.isEmpty() && postings.descriptions.isEmpty()) {
+                terms.remove(term);
+            }
+        }
+    }
+
+    /**
+     * Не больше count id фильмов, содержащих все слова запроса, по убыванию веса (при равенстве — по id).
+     */
+    public List<Long> search(String query, int count) {
+        List<String> tokens = tokenize(query);
+        if (tokens.isEmpty()) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            List<Match> matches = new ArrayList<>(tokens.size());
+            IdSet candidates = null;
+            for (String token : tokens) {
+                Match match = match(token);
+                IdSet found = new IdSet();
+                found.addAll(match.names());
+                found.addAll(match.descriptions());
+                candidates = candidates == null ? found : candidates.and(found);
+                if (candidates.isEmpty()) {
+                    return List.of();
+                }
+                matches.add(match);
+            }
+
+            PriorityQueue<long[]> heap = new PriorityQueue<>(count + 1, WORST_FIRST);
+            for (Long filmId : candidates) {
+                long score = 0;
+                for (Match match : matches) {
+                    score += match.score(filmId);
+                }
+                heap.offer(new long[]{filmId, score});
+                if (heap.size() > count) {
+                    heap.poll();
+                }
+            }
+            List<Long> result = new ArrayList<>(heap.size());
+            while (!heap.isEmpty()) {
+                result.add(heap.poll()[0]);
+            }
+            Collections.reverse(result);
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Match match(String token) {
+        Postings exact = terms.get(token);
+        IdSet names = new IdSet();
+        IdSet descriptions = new IdSet();
+        if (token.length() < MIN_PREFIX_LENGTH) {
+            if (exact != null) {
+                names.addAll(exact.names);
+                descriptions.addAll(exact.descriptions);
+            }
+            return new Match(exact, names, descriptions);
+        }
+        int expanded = 0;
+        for (Postings postings : terms.subMap(token, true, token + Character.MAX_VALUE, false).values()) {
+            if (expanded++ == MAX_PREFIX_TERMS) {
+                break;
+            }
+            names.addAll(postings.names);
+            descriptions.addAll(postings.descriptions);
+        }
+        return new Match(exact, names, descriptions);
+    }
+
+    public Stats stats() {
+        lock.readLock().lock();
+        try {
+            long postings = 0;
+            long bytes = (long) termsByFilm.size() * FILM_OVERHEAD_BYTES;
+            for (Postings entry : terms.values()) {
+                postings += entry.names.size() + entry.descriptions.size();
+                bytes += TERM_OVERHEAD_BYTES + entry.term.length()
+                        + entry.names.sizeInBytes() + entry.descriptions.sizeInBytes();
+            }
+            for (String[] filmTerms : termsByFilm.values()) {
+                bytes += 4L * filmTerms.length;
+            }
+            return new Stats(termsByFilm.size(), terms.size(), postings, bytes);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Размер индекса: фильмы с хотя бы одним словом, слова словаря, пары слово–фильм по обоим полям
+     * и оценка занимаемой памяти в байтах.
+     */
+    public record Stats(int films, int terms, long postings, long estimatedBytes) {
+    }
+
+    private static final class Postings {
+        private final String term;
+        private final IdSet names = new IdSet();
+        private final IdSet descriptions = new IdSet();
+
+        private Postings(String term) {
+            this.term = term;
+        }
+    }
+
+    private record Match(Postings exact, IdSet names, IdSet descriptions) {
+        long score(long filmId) {
+            long score = 0;
+            if (names.contains(filmId)) {
+                score += exact != null && exact.names.contains(filmId) ? 2 * NAME_WEIGHT : NAME_WEIGHT;
+            }
+            if (descriptions.contains(filmId)) {
+                score += exact != null && exact.descriptions.contains(filmId)
+                        ? 2 * DESCRIPTION_WEIGHT : DESCRIPTION_WEIGHT;
+            }
+            return score;
+        }
+    }
+}
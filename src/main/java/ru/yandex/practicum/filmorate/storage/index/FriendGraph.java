@@ -0,0 +1,94 @@
+package ru.yandex.practicum.filmorate.storage.index;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Граф дружбы: для каждого пользователя — отсортированный массив id тех, кого он добавил в друзья.
+ * Массивы не меняются на месте (копия при записи), поэтому чтение идёт без блокировок,
+ * а общие друзья считаются слиянием двух массивов за O(n + m).
+ */
+public class FriendGraph {
+    private static final long[] EMPTY = new long[0];
+
+    private final Map<Long, long[]> friends = new ConcurrentHashMap<>();
+
+    public void add(long userId, long friendId) {
+        friends.compute(userId, (id, current) -> {
+            long[] ids = current == null ? EMPTY : current;
+            int position = Arrays.binarySearch(ids, friendId);
+            if (position >= 0) {
+                return ids;
+            }
+            int insertAt = -position - 1;
+            long[] updated = new long[ids.length + 1];
+            System.arraycopy(ids, 0, updated, 0, insertAt);
+            updated[insertAt] = friendId;
+            System.arraycopy(ids, insertAt, updated, insertAt + 1, ids.length - insertAt);
+            return updated;
+        });
+    }
+
+    public void remove(long userId, long friendId) {
+        friends.computeIfPresent(userId, (id, ids) -> {
+            int position = Arrays.binarySearch(ids, friendId);
+            if (position < 0) {
+                return ids;
+            }
+            if (ids.length == 1) {
+                return null;
+            }
+            long[] updated = new long[ids.length - 1];
+            System.arraycopy(ids, 0, updated, 0, position);
+            System.arraycopy(ids, position + 1, updated, position, ids.length - position - 1);
+            return updated;
+        });
+    }
+
+    /**
+     * Убирает пользователя вместе со всеми ссылками на него; проходит по всему графу.
+     */
+    public void removeUser(long userId) {
+        friends.remove(userId);
+        friends.keySet().forEach(id -> remove(id, userId));
+    }
+
+    public void reset(Map<Long, long[]> adjacency) {
+        friends.clear();
+        adjacency.forEach((userId, ids) -> {
+            long[] sorted = ids.clone();
+            Arrays.sort(sorted);
+            friends.put(userId, sorted);
+        });
+    }
+
+    public long[] friends(long userId) {
+        return friends.getOrDefault(userId, EMPTY);
+    }
+
+    public long[] suggestions(long userId, int limit, int maxEdges, long deadline) {
+        return FriendSuggestions.rank(userId, friends(userId), this::friends, limit, maxEdges, deadline);
+    }
+
+    public long[] mutual(long userId, long otherId) {
+        long[] first = friends(userId);
+        long[] second = friends(otherId);
+        long[] result = new long[Math.min(first.length, second.length)];
+        int count = 0;
+        int i = 0;
+        int j = 0;
+        while (i < first.length && j < second.length) {
+            if (first[i] < second[j]) {
+                i++;
+            } else if (first[i] > second[j]) {
+                j++;
+            } else {
+                result[count++] = first[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+}
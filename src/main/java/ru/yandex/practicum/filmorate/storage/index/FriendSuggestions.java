@@ -0,0 +1,170 @@
+package ru.yandex.practicum.filmorate.storage.index;
+
+import java.util.Arrays;
+import java.util.function.LongFunction;
+
+/**
+ * Рекомендации друзей: друзья друзей, отсортированные по числу общих друзей (при равенстве — по id).
+ * Обход ограничен числом просмотренных рёбер второго уровня и временем; счётчики — в открытой
+ * адресации по примитивным массивам, без упаковки id в Long.
+ */
+public final class FriendSuggestions {
+    private static final long EMPTY_KEY = Long.MIN_VALUE;
+    private static final int DEADLINE_CHECK_MASK = 1023;
+
+    private FriendSuggestions() {
+    }
+
+    /**
+     * @param friends   отсортированные id друзей пользователя
+     * @param friendsOf друзья произвольного пользователя, тоже отсортированные
+     * @param maxEdges  сколько рёбер второго уровня можно просмотреть
+     * @param deadline  System.nanoTime(), после которого обход останавливается
+     */
+    public static long[] rank(long userId, long[] friends, LongFunction<long[]> friendsOf,
+                              int limit, int maxEdges, long deadline) {
+        Counter counter = new Counter(Math.min(maxEdges, 1 << 10));
+        int edges = 0;
+        traversal:
+        for (long friendId : friends) {
+            for (long candidate : friendsOf.apply(friendId)) {
+                if ((++edges & DEADLINE_CHECK_MASK) == 0 && System.nanoTime() - deadline > 0) {
+                    break traversal;
+                }
+                if (candidate != userId && Arrays.binarySearch(friends, candidate) < 0) {
+                    counter.increment(candidate);
+                }
+                if (edges >= maxEdges) {
+                    break traversal;
+                }
+            }
+        }
+        return counter.top(limit);
+    }
+
+    private static final class Counter {
+        private long[] keys;
+        private int[] counts;
+        private int size;
+
+        private Counter(int expected) {
+            int capacity = Integer.highestOneBit(Math.max(16, expected * 2 - 1)) << 1;
+            keys = new long[capacity];
+            counts = new int[capacity];
+            Arrays.fill(keys, EMPTY_KEY);
+        }
+
+        private void increment(long key) {
+            int slot = slot(keys, key);
+            if (keys[slot] == EMPTY_KEY) {
+                keys[slot] = key;
+                size++;
+                if (size * 2 > keys.length) {
+                    grow();
+                    slot = slot(keys, key);
+                }
+            }
+            counts[slot]++;
+        }
+
+        private void grow() {
+            long[] oldKeys = keys;
+            int[] oldCounts = counts;
+            keys = new long[oldKeys.length * 2];
+            counts = new int[oldKeys.length * 2];
+            Arrays.fill(keys, EMPTY_KEY);
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != EMPTY_KEY) {
+                    int slot = slot(keys, oldKeys[i]);
+                    keys[slot] = oldKeys[i];
+                    counts[slot] = oldCounts[i];
+                }
+            }
+        }
+
+        private static int slot(long[] keys, long key) {
+            int mask = keys.length - 1;
+            int slot = Long.hashCode(key * 0x9E3779B97F4A7C15L) & mask;
+            while (keys[slot] != EMPTY_KEY && keys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        /**
+         * Отбор k лучших бинарной кучей (худший кандидат в корне), затем сортировка k элементов.
+         */
+        private long[] top(int limit) {
+            int k = Math.min(limit, size);
+            long[] heapKeys = new long[k];
+            int[] heapCounts = new int[k];
+            int heapSize = 0;
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] == EMPTY_KEY) {
+                    continue;
+                }
+                if (heapSize < k) {
+                    heapKeys[heapSize] = keys[i];
+                    heapCounts[heapSize] = counts[i];
+                    siftUp(heapKeys, heapCounts, heapSize++);
+                } else if (k > 0 && better(counts[i], keys[i], heapCounts[0], heapKeys[0])) {
+                    heapKeys[0] = keys[i];
+                    heapCounts[0] = counts[i];
+                    siftDown(heapKeys, heapCounts, k);
+                }
+            }
+            long[] result = new long[k];
+            for (int i = k - 1; i >= 0; i--) {
+                result[i] = heapKeys[0];
+                heapKeys[0] = heapKeys[i];
+                heapCounts[0] = heapCounts[i];
+                siftDown(heapKeys, heapCounts, i);
+            }
+            return result;
+        }
+
+        private static boolean better(int count, long key, int otherCount, long otherKey) {
+            return count != otherCount ? count > otherCount : key < otherKey;
+        }
+
+        private static void siftUp(long[] keys, int[] counts, int index) {
+            while (index > 0) {
+                int parent = (index - 1) / 2;
+                if (!better(counts[parent], keys[parent], counts[index], keys[index])) {
+                    break;
+                }
+                swap(keys, counts, parent, index);
+                index = parent;
+            }
+        }
+
+        private static void siftDown(long[] keys, int[] counts, int size) {
+            int index = 0;
+            while (true) {
+                int worst = index;
+                int left = 2 * index + 1;
+                int right = left + 1;
+                if (left < size && better(counts[worst], keys[worst], counts[left], keys[left])) {
+                    worst = left;
+                }
+                if (right < size && better(counts[worst], keys[worst], counts[right], keys[right])) {
+                    worst = right;
+                }
+                if (worst == index) {
+                    return;
+                }
+                swap(keys, counts, index, worst);
+                index = worst;
+            }
+        }
+
+        private static void swap(long[] keys, int[] counts, int i, int j) {
+            long key = keys[i];
+            keys[i] = keys[j];
+            keys[j] = key;
+            int count = counts[i];
+            counts[i] = counts[j];
+            counts[j] = count;
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package ru.yandex.practicum.filmorate.storage.index;
+
+import ru.yandex.practicum.filmorate.model.IdSet;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Разреженная матрица лайков пользователь × фильм: строки и столбцы хранятся как {@link IdSet}, поэтому
+ * пересечение историй двух пользователей — поблочная операция над битовыми картами. Меняется на каждом лайке.
+ * Рекомендации: кандидаты — все, кто лайкнул хотя бы один фильм пользователя; их сходство (коэффициент Жаккара)
+ * считается параллельно в fork/join, фильмы k самых похожих взвешиваются их сходством.
+ * Строки копируются при записи: опубликованный IdSet не меняется, поэтому рекомендации читают матрицу без
+ * блокировок и не задерживают лайки, а запись копирует только две затронутые строки.
+ */
+public class LikeMatrix {
+    private static final int SCORING_THRESHOLD = 2048;
+    private static final int DEFAULT_NEIGHBOURS = 50;
+    private static final Comparator<Scored> WORST_FIRST = Comparator.comparingDouble(Scored::score)
+            .thenComparing(Scored::id, Comparator.reverseOrder());
+
+    private volatile Rows rows = new Rows(new ConcurrentHashMap<>(), new ConcurrentHashMap<>());
+    private final ForkJoinPool pool;
+    private final int neighbours;
+
+    public LikeMatrix() {
+        this(ForkJoinPool.commonPool(), DEFAULT_NEIGHBOURS);
+    }
+
+    public LikeMatrix(ForkJoinPool pool, int neighbours) {
+        this.pool = pool;
+        this.neighbours = neighbours;
+    }
+
+    public synchronized void set(long userId, long filmId, boolean liked) {
+        Rows current = rows;
+        update(current.filmsByUser(), userId, filmId, liked);
+        update(current.usersByFilm(), filmId, userId, liked);
+    }
+
+    private static void update(Map<Long, IdSet> rows, long rowId, long id, boolean present) {
+        IdSet row = rows.get(rowId);
+        if (row == null ? !present : row.contains(id) == present) {
+            return;
+        }
+        IdSet updated = row == null ? new IdSet() : row.copy();
+        if (present) {
+            updated.add(id);
+        } else {
+            updated.remove(id);
+        }
+        if (updated.isEmpty()) {
+            rows.remove(rowId);
+        } else {
+            rows.put(rowId, updated);
+        }
+    }
+
+    /**
+     * Матрица из готовых строк пользователей; переданные множества переходят во владение матрицы.
+     */
+    public synchronized void reset(Map<Long, IdSet> likesByUser) {
+        Map<Long, IdSet> filmsByUser = new ConcurrentHashMap<>(likesByUser);
+        Map<Long, IdSet> usersByFilm = new ConcurrentHashMap<>();
+        likesByUser.forEach((userId, filmIds) ->
+                filmIds.forEach(filmId -> usersByFilm.computeIfAbsent(filmId, id -> new IdSet()).add(userId)));
+        rows = new Rows(filmsByUser, usersByFilm);
+    }
+
+    /**
+     * Не больше count фильмов, которые пользователь ещё не лайкал, по убыванию суммарного сходства
+     * лайкнувших их соседей (при равенстве — по id).
+     */
+    public List<Long> recommend(long userId, int count) {
+        Rows current = rows;
+        IdSet liked = current.filmsByUser().get(userId);
+        if (liked == null) {
+            return List.of();
+        }
+        IdSet candidates = new IdSet();
+        liked.forEach(filmId -> {
+            IdSet users = current.usersByFilm().get(filmId);
+            if (users != null) {
+                candidates.addAll(users);
+            }
+        });
+        candidates.remove(userId);
+        long[] candidateIds = candidates.longStream().toArray();
+        List<Scored> similar = pool.invoke(new ScoreTask(current.filmsByUser(), liked, candidateIds, 0,
+                candidateIds.length));
+
+        Map<Long, Double> filmScores = new HashMap<>();
+        for (Scored neighbour : similar) {
+            IdSet films = current.filmsByUser().get(neighbour.id());
+            if (films == null) {
+                continue;
+            }
+            films.forEach(filmId -> {
+                if (!liked.contains(filmId)) {
+                    filmScores.merge(filmId, neighbour.score(), Double::sum);
+                }
+            });
+        }
+        List<Scored> films = new ArrayList<>(filmScores.size());
+        filmScores.forEach((filmId, score) -> films.add(new Scored(filmId, score)));
+        return top(films, count).stream().map(Scored::id).toList();
+    }
+
+    private static List<Scored> top(List<Scored> scored, int count) {
+        PriorityQueue<Scored> heap = new PriorityQueue<>(Math.max(0, Math.min(count, scored.size())) + 1, WORST_FIRST);
+        for (Scored entry : scored) {
+            heap.offer(entry);
+            if (heap.size() > count) {
+                heap.poll();
+            }
+        }
+        List<Scored> result = new ArrayList<>(heap.size());
+        while (!heap.isEmpty()) {
+            result.add(heap.poll());
+        }
+        Collections.reverse(result);
+        return result;
+    }
+
+    private record Rows(Map<Long, IdSet> filmsByUser, Map<Long, IdSet> usersByFilm) {
+    }
+
+    private record Scored(long id, double score) {
+    }
+
+    private final class ScoreTask extends RecursiveTask<List<Scored>> {
+        private final Map<Long, IdSet> filmsByUser;
+        private final IdSet liked;
+        private final long[] candidateIds;
+        private final int from;
+        private final int to;
+
+        private ScoreTask(Map<Long, IdSet> filmsByUser, IdSet liked, long[] candidateIds, int from, int to) {
+            this.filmsByUser = filmsByUser;
+            this.liked = liked;
+            this.candidateIds = candidateIds;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected List<Scored> compute() {
+            if (to - from > SCORING_THRESHOLD) {
+                int middle = (from + to) >>> 1;
+                ScoreTask left = new ScoreTask(filmsByUser, liked, candidateIds, from, middle);
+                left.fork();
+                List<Scored> merged = new ArrayList<>(new ScoreTask(filmsByUser, liked, candidateIds, middle, to).compute());
+                merged.addAll(left.join());
+                return top(merged, neighbours);
+            }
+            List<Scored> scored = new ArrayList<>(to - from);
+            for (int i = from; i < to; i++) {
+                IdSet other = filmsByUser.get(candidateIds[i]);
+                if (other == null) {
+                    // пользователь снял все лайки, пока шёл подсчёт
+                    continue;
+                }
+                int common = liked.andCardinality(other);
+                scored.add(new Scored(candidateIds[i], (double) common / (liked.size() + other.size() - common)));
+            }
+            return top(scored, neighbours);
+        }
+    }
+}
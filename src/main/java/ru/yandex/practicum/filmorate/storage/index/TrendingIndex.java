@@ -0,0 +1,163 @@
+package ru.yandex.practicum.filmorate.storage.index;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Лайки за скользящее окно: у каждого фильма с лайками за последние {@link #MAX_WINDOW} кольцо часовых корзин.
+ * Корзина хранит номер своего часа, поэтому устаревшие значения не нужно чистить по таймеру — при записи
+ * корзина просто переиспользуется, а при чтении не учитывается. Топ-N собирается кучей размера N.
+ */
+public class TrendingIndex {
+    public static final Duration BUCKET = Duration.ofHours(1);
+    public static final Duration MAX_WINDOW = Duration.ofDays(7);
+    private static final int BUCKETS = (int) (MAX_WINDOW.toMillis() / BUCKET.toMillis());
+    private static final Comparator<Entry> WORST_FIRST = Comparator.comparingLong(Entry::likes)
+            .thenComparing(Entry::filmId, Comparator.reverseOrder());
+
+    private final Map<Long, Ring> rings = new ConcurrentHashMap<>();
+    private final Clock clock;
+
+    public TrendingIndex() {
+        this(Clock.systemUTC());
+    }
+
+    public TrendingIndex(Clock clock) {
+        this.clock = clock;
+    }
+
+    public Instant now() {
+        return clock.instant();
+    }
+
+    /**
+     * Начало самого длинного окна — лайки раньше этого момента индексу не нужны.
+     */
+    public Instant horizon() {
+        return Instant.ofEpochMilli((currentBucket() - BUCKETS + 1) * BUCKET.toMillis());
+    }
+
+    /**
+     * Номер текущей корзины: меняется, когда окна сдвигаются, даже если новых лайков не было.
+     */
+    public long currentBucket() {
+        return bucketOf(now());
+    }
+
+    public void add(long filmId, Instant likedAt) {
+        adjust(filmId, likedAt, 1);
+    }
+
+    public void remove(long filmId, Instant likedAt) {
+        adjust(filmId, likedAt, -1);
+    }
+
+    private void adjust(long filmId, Instant likedAt, int delta) {
+        long current = currentBucket();
+        // лайк «из будущего» при расхождении часов считаем текущим
+        long bucket = Math.min(bucketOf(likedAt), current);
+        if (bucket <= current - BUCKETS) {
+            return;
+        }
+        rings.compute(filmId, (id, ring) -> {
+            Ring updated = ring != null ? ring : new Ring();
+            updated.adjust(bucket, delta);
+            return updated.isEmpty(current) ? null : updated;
+        });
+    }
+
+    public void clear() {
+        rings.clear();
+    }
+
+    public List<Long> top(int count, Duration window) {
+        long current = currentBucket();
+        long from = current - buckets(window) + 1;
+        PriorityQueue<Entry> heap = new PriorityQueue<>(Math.max(0, Math.min(count, rings.size())) + 1, WORST_FIRST);
+        rings.forEach((filmId, ring) -> {
+            long likes = ring.sum(from, current);
+            if (likes == 0) {
+                rings.computeIfPresent(filmId, (id, existing) -> existing.isEmpty(current) ? null : existing);
+                return;
+            }
+            heap.offer(new Entry(filmId, likes));
+            if (heap.size() > count) {
+                heap.poll();
+            }
+        });
+        List<Long> filmIds = new ArrayList<>(heap.size());
+        while (!heap.isEmpty()) {
+            filmIds.add(heap.poll().filmId());
+        }
+        Collections.reverse(filmIds);
+        return filmIds;
+    }
+
+    public long likes(long filmId, Duration window) {
+        Ring ring = rings.get(filmId);
+        long current = currentBucket();
+        return ring == null ? 0 : ring.sum(current - buckets(window) + 1, current);
+    }
+
+    private static int buckets(Duration window) {
+        long buckets = Math.max(1, window.toMillis() / BUCKET.toMillis());
+        return (int) Math.min(buckets, BUCKETS);
+    }
+
+    private static long bucketOf(Instant instant) {
+        return Math.floorDiv(instant.toEpochMilli(), BUCKET.toMillis());
+    }
+
+    private static final class Ring {
+        private final long[] buckets = new long[BUCKETS];
+        private final int[] counts = new int[BUCKETS];
+
+        private Ring() {
+            Arrays.fill(buckets, Long.MIN_VALUE);
+        }
+
+        private synchronized void adjust(long bucket, int delta) {
+            int slot = (int) Math.floorMod(bucket, (long) BUCKETS);
+            if (buckets[slot] != bucket) {
+                if (delta < 0) {
+                    return;
+                }
+                buckets[slot] = bucket;
+                counts[slot] = 0;
+            }
+            counts[slot] = Math.max(0, counts[slot] + delta);
+        }
+
+        private synchronized long sum(long from, long to) {
+            long sum = 0;
+            for (long bucket = from; bucket <= to; bucket++) {
+                int slot = (int) Math.floorMod(bucket, (long) BUCKETS);
+                if (buckets[slot] == bucket) {
+                    sum += counts[slot];
+                }
+            }
+            return sum;
+        }
+
+        private synchronized boolean isEmpty(long current) {
+            for (int slot = 0; slot < BUCKETS; slot++) {
+                if (counts[slot] > 0 && buckets[slot] > current - BUCKETS) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private record Entry(long filmId, long likes) {
+    }
+}
@@ -0,0 +1,36 @@
+package ru.yandex.practicum.filmorate.storage.index;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Счётчик изменений хранилища: версия коллекции растёт при любом изменении, версия сущности —
+ * номер её последнего изменения (0, если с запуска не менялась). Нужен для ETag без запросов к БД.
+ */
+public class VersionCounter {
+    private final AtomicLong version = new AtomicLong();
+    private final Map<Long, Long> versions = new ConcurrentHashMap<>();
+    private volatile long floor;
+
+    public void touch(long id) {
+        long updated = version.incrementAndGet();
+        versions.merge(id, updated, Math::max);
+    }
+
+    /**
+     * Меняет версии всех сущностей разом, например после пересчёта счётчиков.
+     */
+    public void touchAll() {
+        floor = version.incrementAndGet();
+        versions.clear();
+    }
+
+    public long version() {
+        return version.get();
+    }
+
+    public long version(long id) {
+        return Math.max(versions.getOrDefault(id, 0L), floor);
+    }
+}
@@ -2,56 +2,133 @@ package ru.yandex.practicum.filmorate.storage.inmemory;
 
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Component;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.exception.ValidationException;
 import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.storage.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.UserStorage;
+import ru.yandex.practicum.filmorate.model.IdSet;
+import ru.yandex.practicum.filmorate.storage.index.FilmPopularityIndex;
+import ru.yandex.practicum.filmorate.storage.index.FilmSearchIndex;
+import ru.yandex.practicum.filmorate.storage.index.LikeMatrix;
+import ru.yandex.practicum.filmorate.storage.index.TrendingIndex;
+import ru.yandex.practicum.filmorate.storage.index.VersionCounter;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDate;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
+/**
+ * Потокобезопасное хранилище фильмов в памяти. Лайки меняются под монитором хранимого фильма,
+ * популярность ведётся в {@link FilmPopularityIndex}, наружу отдаются копии.
+ */
 @Slf4j
-@Component("inMemoryUserStorage")
+@Component("InMemoryFilmStorage")
 public class InMemoryFilmStorage implements FilmStorage {
 
-    private final Map<Long, Film> films = new HashMap<>();
+    private final ConcurrentNavigableMap<Long, Film> films = new ConcurrentSkipListMap<>();
+    private final AtomicLong ids = new AtomicLong();
+    private final FilmPopularityIndex popularity = new FilmPopularityIndex();
+    private final TrendingIndex trending = new TrendingIndex();
+    private final LikeMatrix likeMatrix = new LikeMatrix();
+    private final FilmSearchIndex searchIndex = new FilmSearchIndex();
+    // filmId -> userId -> время лайка, меняется под монитором фильма вместе с его лайками
+    private final Map<Long, Map<Long, Instant>> likeTimes = new ConcurrentHashMap<>();
+    private final VersionCounter versions = new VersionCounter();
+    private final UserStorage userStorage;
+
+    @Autowired
+    public InMemoryFilmStorage(@Qualifier("InMemoryUserStorage") UserStorage userStorage) {
+        this.userStorage = userStorage;
+    }
 
     @Override
     public void deleteLike(Long filmId, Long userId) throws NotFoundException {
-
+        Film film = getFilm(filmId);
+        checkUser(userId);
+        synchronized (film) {
+            if (film.getLikes().remove(userId)) {
+                popularity.adjust(filmId, -1);
+                Map<Long, Instant> times = likeTimes.get(filmId);
+                Instant likedAt = times == null ? null : times.remove(userId);
+                if (likedAt != null) {
+                    trending.remove(filmId, likedAt);
+                }
+                likeMatrix.set(userId, filmId, false);
+                versions.touch(filmId);
+            }
+        }
     }
 
     @Override
     public Collection<Film> findAll() {
-        return films.values();
+        return films.values()
+                .stream()
+                .map(this::copyOf)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public List<Film> findPage(Long afterId, int limit) {
+        long after = afterId == null ? 0 : afterId;
+        return films.tailMap(after, false)
+                .values()
+                .stream()
+                .limit(limit)
+                .map(this::copyOf)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public void streamAll(Consumer<Film> consumer) {
+        films.values().stream().map(this::copyOf).forEach(consumer);
     }
 
     @Override
     public Film create(Film film) throws ValidationException {
-        film.setId(getNextId());
-        films.put(film.getId(), film);
+        film.setId(ids.incrementAndGet());
+        films.put(film.getId(), copyOf(film));
+        popularity.register(film.getId());
+        searchIndex.index(film.getId(), film.getName(), film.getDescription());
+        versions.touch(film.getId());
         log.info("Создан новый фильм");
         return film;
     }
 
     @Override
-    public Film update(Film newFilm) throws ValidationException, NotFoundException {
-        if (films.containsKey(newFilm.getId())) {
-            films.put(newFilm.getId(), newFilm);
-            log.info("Обновлен фильм");
+    public List<Film> createAll(List<Film> newFilms) throws ValidationException {
+        for (Film film : newFilms) {
+            create(film);
         }
-        return newFilm;
+        return newFilms;
     }
 
-    private long getNextId() {
-        long currentMaxId = films.keySet()
-                .stream()
-                .mapToLong(id -> id)
-                .max()
-                .orElse(0);
-        return ++currentMaxId;
+    @Override
+    public Film update(Film newFilm) throws ValidationException, NotFoundException {
+        Film stored = getFilm(newFilm.getId());
+        synchronized (stored) {
+            stored.setName(newFilm.getName());
+            stored.setDescription(newFilm.getDescription());
+            stored.setReleaseDate(newFilm.getReleaseDate());
+            stored.setDuration(newFilm.getDuration());
+            stored.setMpa(newFilm.getMpa());
+            stored.getGenres().clear();
+            stored.getGenres().addAll(newFilm.getGenres());
+            searchIndex.index(stored.getId(), stored.getName(), stored.getDescription());
+        }
+        versions.touch(stored.getId());
+        log.info("Обновлен фильм");
+        return newFilm;
     }
 
     public void updateFilmValidation(Film newFilm) throws NotFoundException {
@@ -107,24 +184,158 @@ public class InMemoryFilmStorage implements FilmStorage {
 
     @Override
     public Optional<Film> findFilmById(Long id) {
-        return Optional.ofNullable(films.get(id));
+        return Optional.ofNullable(films.get(id)).map(this::copyOf);
     }
 
     @Override
-    public void addLike(Long filmId, Long userId) {
+    public List<Film> findFilmsByIds(List<Long> filmIds) {
+        return filmIds.stream()
+                .map(films::get)
+                .filter(Objects::nonNull)
+                .map(this::copyOf)
+                .collect(Collectors.toList());
+    }
 
+    @Override
+    public void addLike(Long filmId, Long userId) throws NotFoundException {
+        Film film = getFilm(filmId);
+        checkUser(userId);
+        synchronized (film) {
+            if (film.getLikes().add(userId)) {
+                popularity.adjust(filmId, 1);
+                Instant likedAt = trending.now();
+                likeTimes.computeIfAbsent(filmId, id -> new HashMap<>()).put(userId, likedAt);
+                trending.add(filmId, likedAt);
+                likeMatrix.set(userId, filmId, true);
+                versions.touch(filmId);
+            }
+        }
     }
 
     public Collection<Film> findPopularFilms(Integer count) {
-        return findAll()
+        return popularity.top(count)
                 .stream()
-                .sorted((film0, film1) -> Integer.compare(film1.getLikes().size(), film0.getLikes().size()))
-                .limit(count)
+                .map(films::get)
+                .filter(Objects::nonNull)
+                .map(this::copyOf)
                 .collect(Collectors.toList());
     }
 
     @Override
-    public boolean existFilmById(Long newFilm) throws NotFoundException {
-        return false;
+    public Collection<Film> findTrendingFilms(Integer count, Duration window) {
+        return trending.top(count, window)
+                .stream()
+                .map(films::get)
+                .filter(Objects::nonNull)
+                .map(this::copyOf)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public Collection<Film> findRecommendations(Long userId, int count) {
+        return likeMatrix.recommend(userId, count)
+                .stream()
+                .map(films::get)
+                .filter(Objects::nonNull)
+                .map(this::copyOf)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public Collection<Film> searchFilms(String query, int count) {
+        return searchIndex.search(query, count)
+                .stream()
+                .map(films::get)
+                .filter(Objects::nonNull)
+                .map(this::copyOf)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public FilmSearchIndex.Stats searchStats() {
+        return searchIndex.stats();
+    }
+
+    @Override
+    public boolean existFilmById(Long filmId) throws NotFoundException {
+        getFilm(filmId);
+        return true;
+    }
+
+    @Override
+    public void rebuildPopularity() {
+        Map<Long, Long> likeCounts = new HashMap<>();
+        Map<Long, IdSet> likesByUser = new HashMap<>();
+        films.values().forEach(film -> {
+            synchronized (film) {
+                likeCounts.put(film.getId(), (long) film.getLikes().size());
+                film.getLikes().forEach(userId -> likesByUser.computeIfAbsent(userId, id -> new IdSet()).add(film.getId()));
+            }
+        });
+        likeMatrix.reset(likesByUser);
+        popularity.reset(likeCounts);
+        trending.clear();
+        likeTimes.forEach((filmId, times) -> {
+            synchronized (films.get(filmId)) {
+                times.values().forEach(likedAt -> trending.add(filmId, likedAt));
+            }
+        });
+        versions.touchAll();
+    }
+
+    @Override
+    public long version() {
+        return versions.version();
+    }
+
+    @Override
+    public long version(Long filmId) {
+        return versions.version(filmId);
+    }
+
+    @Override
+    public Map<Long, Long> verifyPopularity() {
+        Map<Long, Long> indexed = popularity.snapshot();
+        Map<Long, Long> mismatches = new HashMap<>();
+        films.values().forEach(film -> {
+            synchronized (film) {
+                long actual = film.getLikes().size();
+                if (indexed.getOrDefault(film.getId(), -1L) != actual) {
+                    mismatches.put(film.getId(), actual);
+                }
+            }
+        });
+        return mismatches;
+    }
+
+    private Film getFilm(Long filmId) throws NotFoundException {
+        Film film = films.get(filmId);
+        if (film == null) {
+            log.warn("Ошибка, id {} нет в списке", filmId);
+            throw new NotFoundException("Фильм Id:" + filmId + " не найден.");
+        }
+        return film;
+    }
+
+    private void checkUser(Long userId) throws NotFoundException {
+        if (!userStorage.existsUser(userId)) {
+            throw new NotFoundException("Пользователь Id:" + userId + " не найден.");
+        }
+    }
+
+    private Film copyOf(Film film) {
+        synchronized (film) {
+            Film copy = Film.builder()
+                    .id(film.getId())
+                    .name(film.getName())
+                    .description(film.getDescription())
+                    .releaseDate(film.getReleaseDate())
+                    .duration(film.getDuration())
+                    .mpa(film.getMpa())
+                    .build();
+            copy.getLikes().addAll(film.getLikes());
+            copy.getGenres().addAll(film.getGenres());
+            return copy;
+        }
     }
-}
\ No newline at end of file
+}
@@ -6,50 +6,120 @@ import org.springframework.stereotype.Component;
 import ru.yandex.practicum.filmorate.exception.DuplicatedDataException;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.IdSet;
 import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.storage.UserStorage;
+import ru.yandex.practicum.filmorate.storage.index.FriendSuggestions;
 
 import java.time.LocalDate;
 import java.util.*;
-
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Потокобезопасное хранилище пользователей в памяти. Пользователи упорядочены по id, поэтому страница
+ * по курсору берётся из tailMap без сортировки; поиск по email и login — O(1),
+ * изменения пользователя и его друзей выполняются под монитором хранимого объекта,
+ * наружу отдаются копии.
+ */
 @Slf4j
-@Component("inMemoryFilmStorage")
+@Component("InMemoryUserStorage")
 public class InMemoryUserStorage implements UserStorage {
-    private final Map<Long, User> users = new HashMap<>();
+    private final ConcurrentNavigableMap<Long, User> users = new ConcurrentSkipListMap<>();
+    private final Map<String, Long> userIdsByEmail = new ConcurrentHashMap<>();
+    private final Map<String, Long> userIdsByLogin = new ConcurrentHashMap<>();
+    private final Set<Friendship> confirmedFriendships = ConcurrentHashMap.newKeySet();
+    private final AtomicLong ids = new AtomicLong();
 
     @Override
     public Collection<User> findAll() {
-        return users.values();
+        return users.values()
+                .stream()
+                .map(this::copyOf)
+                .toList();
+    }
+
+    @Override
+    public List<User> findPage(Long afterId, int limit) {
+        long after = afterId == null ? 0 : afterId;
+        return users.tailMap(after, false)
+                .values()
+                .stream()
+                .limit(limit)
+                .map(this::copyOf)
+                .toList();
+    }
+
+    @Override
+    public void streamAll(Consumer<User> consumer) {
+        users.values().stream().map(this::copyOf).forEach(consumer);
     }
 
     @Override
     public User create(User user) throws ValidationException, DuplicatedDataException {
-        // проверяем выполнение необходимых условий
-        user.setId(getNextId());
-        users.put(user.getId(), user);
+        nameValidation(user);
+        long id = ids.incrementAndGet();
+        reserve(userIdsByEmail, user.getEmail(), id, "Эта почта уже используется");
+        try {
+            reserve(userIdsByLogin, user.getLogin(), id, "Этот логин уже используется");
+        } catch (DuplicatedDataException e) {
+            userIdsByEmail.remove(user.getEmail(), id);
+            throw e;
+        }
+        user.setId(id);
+        users.put(id, copyOf(user));
         log.info("Новый пользователь успешно создан, id={}, login={}, email={}", user.getId(), user.getLogin(), user.getEmail());
         return user;
     }
 
     @Override
     public User update(User newUser) throws ValidationException, NotFoundException, DuplicatedDataException {
-        if (users.containsKey(newUser.getId())) {
-            users.put(newUser.getId(), newUser);
+        User stored = getUser(newUser.getId());
+        synchronized (stored) {
+            long id = stored.getId();
+            boolean emailChanged = !Objects.equals(stored.getEmail(), newUser.getEmail());
+            boolean loginChanged = !Objects.equals(stored.getLogin(), newUser.getLogin());
+            // сначала занимаем оба новых значения, старые освобождаем только когда оба заняты
+            if (emailChanged) {
+                reserve(userIdsByEmail, newUser.getEmail(), id, "Эта почта уже используется");
+            }
+            if (loginChanged) {
+                try {
+                    reserve(userIdsByLogin, newUser.getLogin(), id, "Этот логин уже используется");
+                } catch (DuplicatedDataException e) {
+                    if (emailChanged) {
+                        userIdsByEmail.remove(newUser.getEmail(), id);
+                    }
+                    throw e;
+                }
+            }
+            if (emailChanged) {
+                userIdsByEmail.remove(stored.getEmail(), id);
+            }
+            if (loginChanged) {
+                userIdsByLogin.remove(stored.getLogin(), id);
+            }
+            stored.setEmail(newUser.getEmail());
+            stored.setLogin(newUser.getLogin());
+            stored.setName(newUser.getName());
+            stored.setBirthday(newUser.getBirthday());
         }
         log.info("Обновили информацию пользователя");
         return newUser;
     }
 
-    private long getNextId() {
-        long currentMaxId = users.keySet()
-                .stream()
-                .mapToLong(id -> id)
-                .max()
-                .orElse(0);
-        return ++currentMaxId;
+    private void reserve(Map<String, Long> index, String key, long userId, String message)
+            throws DuplicatedDataException {
+        Long owner = index.putIfAbsent(key, userId);
+        if (owner != null && owner != userId) {
+            log.warn("Ошибка валидации, значение {} уже используется", key);
+            throw new DuplicatedDataException(message);
+        }
     }
 
-
     public void newUserValidation(User user) throws DuplicatedDataException {
         checkDuplicatedEmail(user);
         nameValidation(user);
@@ -119,14 +189,15 @@ public class InMemoryUserStorage implements UserStorage {
     }
 
     private void checkDuplicatedEmail(User user) throws DuplicatedDataException {
-        if (users.values().stream().anyMatch(list -> list.getEmail().equals(user.getEmail()))) {
+        Long owner = userIdsByEmail.get(user.getEmail());
+        if (owner != null && !owner.equals(user.getId())) {
             log.warn("Ошибка валидации, почта {} уже существует", user.getEmail());
             throw new DuplicatedDataException("Эта почта уже используется");
         }
     }
 
     private void userIdValidation(User user) throws NotFoundException {
-        if (users.values().stream().noneMatch(list -> list.getId().equals(user.getId()))) {
+        if (!users.containsKey(user.getId())) {
             log.warn("Ошибка валидации, пользователя с Id: {} не существует", user.getId());
             throw new NotFoundException("Пользователя с таким Id не существует");
         }
@@ -134,47 +205,166 @@ public class InMemoryUserStorage implements UserStorage {
 
 
     @Override
-    public Optional<User> findUserById(Long userId) throws NotFoundException {
-        if (users.values().stream().anyMatch((x -> x.getId().equals(userId)))) {
-            return Optional.ofNullable(users.get(userId));
-        } else {
-            log.warn("Ошибка валидации, пользователя с Id: {} не существует", userId);
-            throw new NotFoundException("Пользователя с таким Id не существует");
-        }
+    public Optional<User> findUserById(Long userId) {
+        return Optional.ofNullable(users.get(userId)).map(this::copyOf);
     }
 
     @Override
-    public void addFriend(Long userId, Long friendId) throws NotFoundException {
+    public boolean existsUser(Long userId) {
+        return users.containsKey(userId);
+    }
 
+    @Override
+    public List<User> findUsersByIds(List<Long> userIds) {
+        return toUsers(userIds);
     }
 
     @Override
-    public void acceptFriend(Long userId, Long friendId) throws NotFoundException {
+    public void addFriend(Long userId, Long friendId) throws NotFoundException {
+        User user = getUser(userId);
+        getUser(friendId);
+        synchronized (user) {
+            user.getFriends().add(friendId);
+        }
+    }
 
+    @Override
+    public void acceptFriend(Long userId, Long friendId) throws NotFoundException {
+        User user = getUser(userId);
+        synchronized (user) {
+            if (!user.getFriends().contains(friendId)) {
+                throw new NotFoundException("Заявка в друзья не найдена");
+            }
+            confirmedFriendships.add(new Friendship(userId, friendId));
+        }
     }
 
     @Override
     public void deleteFriend(Long userId, Long friendId) throws NotFoundException {
-
+        User user = getUser(userId);
+        getUser(friendId);
+        synchronized (user) {
+            user.getFriends().remove(friendId);
+            confirmedFriendships.remove(new Friendship(userId, friendId));
+        }
     }
 
     @Override
     public List<User> findAllFriends(Long userId) throws NotFoundException {
-        return null;
+        return toUsers(friendIds(getUser(userId)));
+    }
+
+    @Override
+    public List<User> findFriendsPage(Long userId, Long afterId, int limit) {
+        long after = afterId == null ? 0 : afterId;
+        User user = users.get(userId);
+        if (user == null) {
+            return List.of();
+        }
+        return toUsers(friendIds(user)
+                .stream()
+                .filter(friendId -> friendId > after)
+                .limit(limit)
+                .toList());
     }
 
     @Override
     public List<User> findMutualFriends(Long userId, Long otherId) {
-        return null;
+        User user = users.get(userId);
+        User other = users.get(otherId);
+        if (user == null || other == null) {
+            return List.of();
+        }
+        IdSet mutual;
+        synchronized (user) {
+            mutual = new IdSet(user.getFriends());
+        }
+        synchronized (other) {
+            mutual = mutual.and(other.getFriends());
+        }
+        return toUsers(mutual.longStream().boxed().toList());
     }
 
     @Override
-    public void deleteUser(Long userId) {
+    public List<User> findFriendSuggestions(Long userId, int limit, int maxEdges, long deadline) {
+        User user = users.get(userId);
+        if (user == null) {
+            return List.of();
+        }
+        long[] suggested = FriendSuggestions.rank(userId, friendIdArray(user),
+                id -> Optional.ofNullable(users.get(id)).map(this::friendIdArray).orElse(new long[0]),
+                limit, maxEdges, deadline);
+        return toUsers(Arrays.stream(suggested).boxed().toList());
+    }
 
+    private long[] friendIdArray(User user) {
+        synchronized (user) {
+            return user.getFriends().longStream().toArray();
+        }
+    }
+
+    @Override
+    public void deleteUser(Long userId) {
+        User removed = users.remove(userId);
+        if (removed == null) {
+            return;
+        }
+        userIdsByEmail.remove(removed.getEmail(), userId);
+        userIdsByLogin.remove(removed.getLogin(), userId);
+        confirmedFriendships.removeIf(friendship -> friendship.userId() == userId || friendship.friendId() == userId);
+        for (User user : users.values()) {
+            synchronized (user) {
+                user.getFriends().remove(userId);
+            }
+        }
     }
 
     @Override
     public boolean existById(Long userId, Long friendId) throws NotFoundException {
-        return false;
+        if (!users.containsKey(userId) || !users.containsKey(friendId)) {
+            throw new NotFoundException("Пользователь не найден.");
+        }
+        return true;
+    }
+
+    private User getUser(Long userId) throws NotFoundException {
+        User user = users.get(userId);
+        if (user == null) {
+            log.warn("Ошибка валидации, пользователя с Id: {} не существует", userId);
+            throw new NotFoundException("Пользователя с таким Id не существует");
+        }
+        return user;
+    }
+
+    private List<Long> friendIds(User user) {
+        synchronized (user) {
+            return user.getFriends().longStream().boxed().toList();
+        }
+    }
+
+    private List<User> toUsers(List<Long> userIds) {
+        return userIds.stream()
+                .map(users::get)
+                .filter(Objects::nonNull)
+                .map(this::copyOf)
+                .toList();
+    }
+
+    private User copyOf(User user) {
+        synchronized (user) {
+            User copy = User.builder()
+                    .id(user.getId())
+                    .email(user.getEmail())
+                    .login(user.getLogin())
+                    .name(user.getName())
+                    .birthday(user.getBirthday())
+                    .friendStatus(user.isFriendStatus())
+                    .build();
+            copy.getFriends().addAll(user.getFriends());
+            return copy;
+        }
+    }
+
+    private record Friendship(long userId, long friendId) {
     }
 }
@@ -0,0 +1,30 @@
+-- Перевод файловой БД H2, созданной первой версией schema.sql, на схему v2 без потери данных:
+-- удаляет дубликаты в likes, friends и film_genre, добавляет составные первичные ключи, индексы
+-- и счётчик лайков. Скрипт можно запускать повторно.
+--
+-- java -cp h2-2.1.210.jar org.h2.tools.RunScript -url jdbc:h2:file:./db/filmorate -user sa -password password \
+--      -script src/main/resources/db/migration/V2__keys_and_indexes.sql
+
+ALTER TABLE films ADD COLUMN IF NOT EXISTS like_count integer NOT NULL DEFAULT 0;
+
+-- дубликаты удаляются на месте, без промежуточных таблиц: из одинаковых строк остаётся первая по _ROWID_
+DELETE FROM likes AS l WHERE EXISTS (SELECT 1 FROM likes AS d
+    WHERE d.film_id = l.film_id AND d.user_id = l.user_id AND d._ROWID_ < l._ROWID_);
+ALTER TABLE likes ADD CONSTRAINT IF NOT EXISTS likes_pk PRIMARY KEY (film_id, user_id);
+
+UPDATE friends AS f SET status = true WHERE NOT COALESCE(status, false) AND EXISTS (SELECT 1 FROM friends AS d
+    WHERE d.user_id = f.user_id AND d.friend_id = f.friend_id AND d.status);
+DELETE FROM friends AS f WHERE EXISTS (SELECT 1 FROM friends AS d
+    WHERE d.user_id = f.user_id AND d.friend_id = f.friend_id AND d._ROWID_ < f._ROWID_);
+ALTER TABLE friends ADD CONSTRAINT IF NOT EXISTS friends_pk PRIMARY KEY (user_id, friend_id);
+
+DELETE FROM film_genre AS fg WHERE EXISTS (SELECT 1 FROM film_genre AS d
+    WHERE d.film_id = fg.film_id AND d.genre_id = fg.genre_id AND d._ROWID_ < fg._ROWID_);
+ALTER TABLE film_genre ADD CONSTRAINT IF NOT EXISTS film_genre_pk PRIMARY KEY (film_id, genre_id);
+
+CREATE INDEX IF NOT EXISTS films_rating_idx ON films (rating_id);
+CREATE INDEX IF NOT EXISTS film_genre_genre_idx ON film_genre (genre_id, film_id);
+CREATE INDEX IF NOT EXISTS friends_friend_idx ON friends (friend_id, user_id);
+CREATE INDEX IF NOT EXISTS likes_user_idx ON likes (user_id, film_id);
+
+UPDATE films AS f SET like_count = (SELECT COUNT(*) FROM likes AS l WHERE l.film_id = f.film_id);
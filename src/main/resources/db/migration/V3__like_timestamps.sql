@@ -0,0 +1,8 @@
+-- Перевод файловой БД H2 со схемой v2 на v3: время лайка и индекс по нему для окон /films/popular?window=.
+-- Старым лайкам время неизвестно, им достаётся момент миграции. Скрипт можно запускать повторно.
+--
+-- java -cp h2-2.1.210.jar org.h2.tools.RunScript -url jdbc:h2:file:./db/filmorate -user sa -password password \
+--      -script src/main/resources/db/migration/V3__like_timestamps.sql
+
+ALTER TABLE likes ADD COLUMN IF NOT EXISTS created_at timestamp NOT NULL DEFAULT CURRENT_TIMESTAMP;
+CREATE INDEX IF NOT EXISTS likes_created_idx ON likes (created_at);
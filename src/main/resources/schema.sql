@@ -18,9 +18,12 @@ CREATE TABLE IF NOT EXISTS films (
   description varchar(200),
   releaseDate timestamp,
   duration integer CHECK (duration > 0),
-  rating_id INTEGER REFERENCES rating (rating_id) ON DELETE RESTRICT
+  rating_id INTEGER REFERENCES rating (rating_id) ON DELETE RESTRICT,
+  like_count integer NOT NULL DEFAULT 0
 );
 
+CREATE INDEX IF NOT EXISTS films_rating_idx ON films (rating_id);
+
 CREATE TABLE IF NOT EXISTS genre (
   genre_id INTEGER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
   genre_name varchar NOT NULL UNIQUE
@@ -28,9 +31,12 @@ CREATE TABLE IF NOT EXISTS genre (
 
 CREATE TABLE IF NOT EXISTS film_genre (
   film_id integer NOT NULL REFERENCES films (film_id) ON DELETE CASCADE,
-  genre_id integer NOT NULL REFERENCES genre (genre_id) ON DELETE RESTRICT
+  genre_id integer NOT NULL REFERENCES genre (genre_id) ON DELETE RESTRICT,
+  PRIMARY KEY (film_id, genre_id)
 );
 
+CREATE INDEX IF NOT EXISTS film_genre_genre_idx ON film_genre (genre_id, film_id);
+
 CREATE TABLE IF NOT EXISTS users (
   user_id INTEGER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
   email varchar NOT NULL UNIQUE,
@@ -42,10 +48,18 @@ CREATE TABLE IF NOT EXISTS users (
 CREATE TABLE IF NOT EXISTS friends (
   user_id integer NOT NULL REFERENCES users (user_id) ON DELETE CASCADE,
   friend_id integer NOT NULL REFERENCES users (user_id) ON DELETE CASCADE,
-  status bool
+  status bool,
+  PRIMARY KEY (user_id, friend_id)
 );
 
+CREATE INDEX IF NOT EXISTS friends_friend_idx ON friends (friend_id, user_id);
+
 CREATE TABLE IF NOT EXISTS likes (
   film_id integer NOT NULL REFERENCES films (film_id) ON DELETE CASCADE,
-  user_id integer NOT NULL REFERENCES users (user_id) ON DELETE CASCADE
-);
\ No newline at end of file
+  user_id integer NOT NULL REFERENCES users (user_id) ON DELETE CASCADE,
+  created_at timestamp NOT NULL DEFAULT CURRENT_TIMESTAMP,
+  PRIMARY KEY (film_id, user_id)
+);
+
+CREATE INDEX IF NOT EXISTS likes_user_idx ON likes (user_id, film_id);
+CREATE INDEX IF NOT EXISTS likes_created_idx ON likes (created_at);
\ No newline at end of file
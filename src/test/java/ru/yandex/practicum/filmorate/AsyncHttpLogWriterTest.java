@@ -0,0 +1,60 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.Test;
+import org.zalando.logbook.Correlation;
+import org.zalando.logbook.HttpLogWriter;
+import org.zalando.logbook.Precorrelation;
+import ru.yandex.practicum.filmorate.logging.AsyncHttpLogWriter;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AsyncHttpLogWriterTest {
+
+    @Test
+    void dropsWhenQueueIsFullAndFlushesOnClose() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> written = new CopyOnWriteArrayList<>();
+        HttpLogWriter slow = new HttpLogWriter() {
+            @Override
+            public void write(Precorrelation precorrelation, String request) {
+                await(release);
+                written.add(request);
+            }
+
+            @Override
+            public void write(Correlation correlation, String response) {
+                await(release);
+                written.add(response);
+            }
+        };
+        AsyncHttpLogWriter writer = new AsyncHttpLogWriter(slow, 2);
+
+        for (int i = 0; i < 10; i++) {
+            writer.write((Correlation) null, "response " + i);
+        }
+
+        assertTrue(writer.dropped() >= 7);
+        release.countDown();
+        writer.close();
+        assertEquals(10 - writer.dropped(), written.size());
+        assertEquals("response 0", written.get(0));
+
+        long dropped = writer.dropped();
+        writer.write((Correlation) null, "after close");
+        assertEquals(dropped + 1, writer.dropped());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
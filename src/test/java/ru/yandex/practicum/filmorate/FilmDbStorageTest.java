@@ -0,0 +1,206 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.storage.dao.FilmDbStorage;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class FilmDbStorageTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transactionTemplate;
+    private FilmDbStorage filmStorage;
+
+    @BeforeEach
+    void beforeEach() {
+        TestDatabase database = new TestDatabase().withUsers(3);
+        jdbcTemplate = database.jdbcTemplate();
+        transactionTemplate = database.transactionTemplate();
+        filmStorage = new FilmDbStorage(jdbcTemplate, database.userStorage(), database.genreStorage());
+        filmStorage.init();
+    }
+
+    @Test
+    void likesDrivePopularFilms() throws Exception {
+        Film first = filmStorage.create(film("First"));
+        Film second = filmStorage.create(film("Second"));
+        Film third = filmStorage.create(film("Third"));
+
+        filmStorage.addLike(second.getId(), 1L);
+        filmStorage.addLike(second.getId(), 2L);
+        filmStorage.addLike(third.getId(), 1L);
+
+        assertEquals(List.of(second.getId(), third.getId(), first.getId()), popularIds(3));
+        assertTrue(filmStorage.verifyPopularity().isEmpty());
+    }
+
+    @Test
+    void rolledBackLikeDoesNotReachPopularity() throws Exception {
+        Film first = filmStorage.create(film("First"));
+        Film second = filmStorage.create(film("Second"));
+        filmStorage.addLike(first.getId(), 1L);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            try {
+                filmStorage.addLike(second.getId(), 1L);
+                filmStorage.addLike(second.getId(), 2L);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+            status.setRollbackOnly();
+        });
+
+        assertEquals(List.of(first.getId(), second.getId()), popularIds(2));
+        assertTrue(filmStorage.verifyPopularity().isEmpty());
+    }
+
+    @Test
+    void rolledBackCreateIsNotRanked() {
+        transactionTemplate.executeWithoutResult(status -> {
+            try {
+                filmStorage.create(film("Rolled back"));
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+            status.setRollbackOnly();
+        });
+
+        assertEquals(List.of(), popularIds(10));
+    }
+
+    @Test
+    void rebuildRepairsDriftedCounters() throws Exception {
+        Film first = filmStorage.create(film("First"));
+        Film second = filmStorage.create(film("Second"));
+        filmStorage.addLike(first.getId(), 1L);
+        jdbcTemplate.update("UPDATE films SET like_count = 7 WHERE film_id = ?", second.getId());
+
+        assertEquals(Map.of(second.getId(), 0L), filmStorage.verifyPopularity());
+
+        filmStorage.rebuildPopularity();
+
+        assertTrue(filmStorage.verifyPopularity().isEmpty());
+        assertEquals(List.of(first.getId(), second.getId()), popularIds(2));
+    }
+
+    @Test
+    void likesMoveTrendingOnlyAfterCommit() throws Exception {
+        Film first = filmStorage.create(film("First"));
+        Film second = filmStorage.create(film("Second"));
+        filmStorage.addLike(first.getId(), 1L);
+        filmStorage.addLike(second.getId(), 1L);
+        filmStorage.addLike(second.getId(), 2L);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            try {
+                filmStorage.deleteLike(second.getId(), 1L);
+                filmStorage.deleteLike(second.getId(), 2L);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+            status.setRollbackOnly();
+        });
+        assertEquals(List.of(second.getId(), first.getId()), trendingIds());
+
+        filmStorage.deleteLike(second.getId(), 1L);
+        filmStorage.deleteLike(second.getId(), 2L);
+        filmStorage.deleteLike(second.getId(), 2L);
+
+        assertEquals(List.of(first.getId()), trendingIds());
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM likes WHERE film_id = ?", Integer.class,
+                second.getId()));
+        assertTrue(filmStorage.verifyPopularity().isEmpty());
+    }
+
+    @Test
+    void likeWritesAreIdempotentAndReportMissingParticipants() throws Exception {
+        Film film = filmStorage.create(film("Film"));
+
+        filmStorage.addLike(film.getId(), 1L);
+        filmStorage.addLike(film.getId(), 1L);
+        filmStorage.deleteLike(film.getId(), 2L);
+
+        assertEquals(1, likeCount(film.getId()));
+        assertThrows(NotFoundException.class, () -> filmStorage.addLike(42L, 1L));
+        assertThrows(NotFoundException.class, () -> filmStorage.addLike(film.getId(), 42L));
+        assertThrows(NotFoundException.class, () -> filmStorage.deleteLike(42L, 1L));
+        assertThrows(NotFoundException.class, () -> filmStorage.deleteLike(film.getId(), 42L));
+    }
+
+    @Test
+    void concurrentIdenticalLikesInsertOnce() throws Exception {
+        List<Film> films = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            films.add(filmStorage.create(film("Film " + i)));
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            for (Film film : films) {
+                CyclicBarrier barrier = new CyclicBarrier(8);
+                List<Future<?>> likes = new ArrayList<>();
+                for (int i = 0; i < 8; i++) {
+                    likes.add(executor.submit(() -> {
+                        barrier.await();
+                        // как в @Transactional addLike за прокси Spring
+                        return transactionTemplate.execute(status -> {
+                            try {
+                                filmStorage.addLike(film.getId(), 1L);
+                            } catch (Exception e) {
+                                throw new IllegalStateException(e);
+                            }
+                            return null;
+                        });
+                    }));
+                }
+                for (Future<?> like : likes) {
+                    like.get(10, TimeUnit.SECONDS);
+                }
+                assertEquals(1, likeCount(film.getId()));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertTrue(filmStorage.verifyPopularity().isEmpty());
+    }
+
+    private int likeCount(long filmId) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM likes WHERE film_id = ?", Integer.class, filmId);
+    }
+
+    private List<Long> trendingIds() {
+        return filmStorage.findTrendingFilms(10, Duration.ofDays(1)).stream().map(Film::getId).toList();
+    }
+
+    private List<Long> popularIds(int count) {
+        return filmStorage.findPopularFilms(count).stream().map(Film::getId).toList();
+    }
+
+    private Film film(String name) {
+        return Film.builder()
+                .name(name)
+                .description("description")
+                .releaseDate(LocalDate.of(2000, 1, 1))
+                .duration(100)
+                .mpa(new Mpa(1, "G"))
+                .build();
+    }
+}
@@ -0,0 +1,200 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.jdbc.StatementExecution;
+import ru.yandex.practicum.filmorate.jdbc.StatementListener;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmImportResult;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.service.FilmService;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:film-import;DB_CLOSE_DELAY=-1")
+public class FilmImportTest {
+
+    @Autowired
+    private FilmService filmService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private FilmInsertListener filmInserts;
+
+    @BeforeEach
+    void beforeEach() {
+        filmInserts.executions.clear();
+    }
+
+    @Test
+    void eachFilmIsValidatedOnItsOwn() throws Exception {
+        Film unknownGenre = film("Unknown genre");
+        unknownGenre.getGenres().add(new Genre(99, "Нет такого"));
+        Film early = film("Early");
+        early.setReleaseDate(LocalDate.of(1800, 1, 1));
+        Film withGenres = film("With genres");
+        withGenres.getGenres().add(new Genre(2, null));
+        withGenres.getGenres().add(new Genre(1, null));
+        List<Film> films = new ArrayList<>(List.of(film("Valid"), film(""), unknownGenre, early, withGenres));
+        films.add(1, null);
+        int before = filmCount();
+
+        List<FilmImportResult> results = filmService.importFilms(films);
+
+        assertEquals(6, results.size());
+        for (int i = 0; i < results.size(); i++) {
+            assertEquals(i, results.get(i).getIndex());
+        }
+        assertNotNull(results.get(0).getId());
+        assertNull(results.get(0).getError());
+        assertEquals("Пустая запись", results.get(1).getError());
+        assertEquals("Название фильма не может быть пустым", results.get(2).getError());
+        assertEquals("Genre not found", results.get(3).getError());
+        assertEquals("Дата релиза — не раньше 28 декабря 1895 года", results.get(4).getError());
+        assertNull(results.get(5).getError());
+        assertEquals(before + 2, filmCount());
+        assertEquals(List.of(1, 2), genreIds(results.get(5).getId()));
+    }
+
+    @Test
+    void validFilmsAreWrittenInChunksOf500() throws Exception {
+        List<Film> films = new ArrayList<>();
+        for (int i = 0; i < 1201; i++) {
+            films.add(film("Film " + i));
+        }
+        int before = filmCount();
+
+        List<FilmImportResult> results = filmService.importFilms(films);
+
+        assertTrue(results.stream().allMatch(result -> result.getId() != null));
+        assertEquals(1201, results.stream().map(FilmImportResult::getId).distinct().count());
+        assertEquals(before + 1201, filmCount());
+        assertEquals(List.of(500, 500, 201),
+                filmInserts.executions.stream().map(StatementExecution::batchSize).toList());
+    }
+
+    @Test
+    void unknownMpaIsRejectedBeforeWriting() throws Exception {
+        Film missingMpa = film("Missing MPA");
+        missingMpa.setMpa(new Mpa(0, "Нет такого"));
+        int before = filmCount();
+
+        List<FilmImportResult> results = filmService.importFilms(List.of(missingMpa, film("Valid")));
+
+        assertEquals("Mpa not found", results.get(0).getError());
+        assertNotNull(results.get(1).getId());
+        assertEquals(before + 1, filmCount());
+    }
+
+    @Test
+    void failedChunkMarksOnlyFilmsThatFailOnTheirOwn() throws Exception {
+        List<Film> films = new ArrayList<>();
+        for (int i = 0; i < 501; i++) {
+            films.add(film("Film " + i));
+        }
+        // кэш MPA ещё знает рейтинг 5, а в БД его уже нет — пачка падает на внешнем ключе
+        films.get(0).setMpa(new Mpa(5, "NC-17"));
+        int before = filmCount();
+        jdbcTemplate.update("DELETE FROM rating WHERE rating_id = 5");
+        List<FilmImportResult> results;
+        try {
+            results = filmService.importFilms(films);
+        } finally {
+            jdbcTemplate.update("INSERT INTO rating (rating_id, rating_name) VALUES (5, 'NC-17')");
+        }
+
+        assertNotNull(results.get(0).getError());
+        assertNull(results.get(0).getId());
+        assertTrue(results.subList(1, 501).stream().allMatch(result -> result.getId() != null));
+        assertEquals(before + 500, filmCount());
+    }
+
+    @Test
+    void importIsLimitedTo10000Films() throws Exception {
+        int before = filmCount();
+
+        assertThrows(ValidationException.class, () -> filmService.importFilms(Collections.nCopies(10_001, null)));
+
+        List<FilmImportResult> results = filmService.importFilms(Collections.nCopies(10_000, null));
+        assertEquals(10_000, results.size());
+        assertTrue(results.stream().allMatch(result -> "Пустая запись".equals(result.getError())));
+        assertEquals(before, filmCount());
+    }
+
+    @Test
+    void updateReplacesGenres() throws Exception {
+        Film film = film("Film");
+        film.getGenres().add(new Genre(1, null));
+        film.getGenres().add(new Genre(2, null));
+        Long filmId = filmService.create(film).getId();
+
+        Film changed = film("Film");
+        changed.setId(filmId);
+        changed.getGenres().add(new Genre(3, null));
+        filmService.update(changed);
+        assertEquals(List.of(3), genreIds(filmId));
+
+        Film withoutGenres = film("Film");
+        withoutGenres.setId(filmId);
+        filmService.update(withoutGenres);
+        assertEquals(List.of(), genreIds(filmId));
+    }
+
+    private int filmCount() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM films", Integer.class);
+    }
+
+    private List<Integer> genreIds(Long filmId) {
+        return jdbcTemplate.queryForList("SELECT genre_id FROM film_genre WHERE film_id = ? ORDER BY genre_id",
+                Integer.class, filmId);
+    }
+
+    private Film film(String name) {
+        return Film.builder()
+                .name(name)
+                .description("description")
+                .releaseDate(LocalDate.of(2000, 1, 1))
+                .duration(100)
+                .mpa(new Mpa(1, "G"))
+                .build();
+    }
+
+    @TestConfiguration
+    static class ListenerConfiguration {
+
+        @Bean
+        FilmInsertListener filmInsertListener() {
+            return new FilmInsertListener();
+        }
+    }
+
+    static class FilmInsertListener implements StatementListener {
+        private final List<StatementExecution> executions = new CopyOnWriteArrayList<>();
+
+        @Override
+        public void afterExecute(StatementExecution execution) {
+            if (execution.sql().startsWith("INSERT INTO films(")) {
+                executions.add(execution);
+            }
+        }
+    }
+}
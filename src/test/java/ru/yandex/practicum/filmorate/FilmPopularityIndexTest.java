@@ -0,0 +1,60 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.storage.index.FilmPopularityIndex;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class FilmPopularityIndexTest {
+
+    @Test
+    void orderedByLikesThenById() {
+        FilmPopularityIndex index = new FilmPopularityIndex();
+        index.register(3L);
+        index.register(1L);
+        index.register(2L);
+        index.adjust(2L, 5);
+        index.adjust(3L, 1);
+        index.adjust(1L, 1);
+
+        assertEquals(List.of(2L, 1L, 3L), index.top(10));
+        assertEquals(List.of(2L), index.top(1));
+        assertEquals(List.of(), index.top(0));
+    }
+
+    @Test
+    void adjustMovesFilmAndNeverGoesBelowZero() {
+        FilmPopularityIndex index = new FilmPopularityIndex();
+        index.register(1L);
+        index.register(2L);
+        index.adjust(1L, 2);
+
+        index.adjust(1L, -5);
+        index.adjust(2L, 1);
+        index.adjust(4L, 1);
+
+        assertEquals(0, index.likes(1L));
+        assertEquals(List.of(2L, 4L, 1L), index.top(10));
+        index.register(2L);
+        assertEquals(1, index.likes(2L));
+    }
+
+    @Test
+    void resetReplacesAllCounts() {
+        FilmPopularityIndex index = new FilmPopularityIndex();
+        index.register(1L);
+        index.adjust(1L, 10);
+
+        index.reset(Map.of(2L, 3L, 3L, 3L, 4L, 7L));
+
+        assertFalse(index.contains(1L));
+        assertTrue(index.contains(3L));
+        assertEquals(List.of(4L, 2L, 3L), index.top(10));
+        assertEquals(Map.of(2L, 3L, 3L, 3L, 4L, 7L), index.snapshot());
+    }
+}
@@ -0,0 +1,54 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.index.FilmSearchIndex;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class FilmSearchIndexTest {
+
+    @Test
+    void ranksNameMatchesAboveDescriptionMatches() {
+        FilmSearchIndex index = new FilmSearchIndex();
+        index.reset(List.of(
+                film(1L, "Тёмный рыцарь", "Бэтмен против Джокера, матрица ни при чём"),
+                film(2L, "Матрица: Перезагрузка", "Нео и Морфеус"),
+                film(3L, "Матрица", "Хакер Нео узнаёт правду о мире")));
+
+        assertEquals(List.of(2L, 3L, 1L), index.search("матрица", 10));
+        assertEquals(List.of(2L, 3L, 1L), index.search("МАТР", 10));
+        assertEquals(List.of(2L, 3L), index.search("нео матр", 10));
+        assertEquals(List.of(1L), index.search("темный", 10));
+        assertEquals(List.of(2L), index.search("нео", 1));
+        assertEquals(List.of(), index.search("м", 10));
+        assertEquals(List.of(), index.search("!!", 10));
+    }
+
+    @Test
+    void reindexReplacesOldWords() {
+        FilmSearchIndex index = new FilmSearchIndex();
+        index.index(1L, "Матрица", "Нео");
+        index.index(2L, "Матрица", null);
+
+        index.index(1L, "Перезагрузка", "Морфеус");
+
+        assertEquals(List.of(2L), index.search("матрица", 10));
+        assertEquals(List.of(), index.search("нео", 10));
+        assertEquals(List.of(1L), index.search("перезагрузка", 10));
+        FilmSearchIndex.Stats stats = index.stats();
+        assertEquals(2, stats.films());
+        assertEquals(3, stats.terms());
+        assertEquals(3, stats.postings());
+    }
+
+    private static Film film(Long id, String name, String description) {
+        return Film.builder()
+                .id(id)
+                .name(name)
+                .description(description)
+                .build();
+    }
+}
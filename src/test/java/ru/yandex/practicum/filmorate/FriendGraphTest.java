@@ -0,0 +1,50 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.storage.index.FriendGraph;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+public class FriendGraphTest {
+
+    @Test
+    void keepsSortedAdjacencyAndMergesMutualFriends() {
+        FriendGraph graph = new FriendGraph();
+        graph.reset(Map.of(1L, new long[]{9, 3, 5}));
+        graph.add(1L, 7L);
+        graph.add(1L, 3L);
+        graph.add(2L, 9L);
+        graph.add(2L, 4L);
+        graph.add(2L, 3L);
+
+        assertArrayEquals(new long[]{3, 5, 7, 9}, graph.friends(1L));
+        assertArrayEquals(new long[]{3, 9}, graph.mutual(1L, 2L));
+
+        graph.remove(1L, 9L);
+        graph.removeUser(3L);
+
+        assertArrayEquals(new long[]{5, 7}, graph.friends(1L));
+        assertArrayEquals(new long[]{}, graph.mutual(1L, 2L));
+        assertArrayEquals(new long[]{}, graph.friends(42L));
+    }
+
+    @Test
+    void suggestsFriendsOfFriendsByMutualCount() {
+        FriendGraph graph = new FriendGraph();
+        graph.reset(Map.of(
+                1L, new long[]{2, 3, 4},
+                2L, new long[]{1, 5, 6},
+                3L, new long[]{5, 6, 7},
+                4L, new long[]{5, 8}));
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+
+        assertArrayEquals(new long[]{5, 6, 7, 8}, graph.suggestions(1L, 10, 1000, deadline));
+        assertArrayEquals(new long[]{5, 6}, graph.suggestions(1L, 2, 1000, deadline));
+        // обход обрывается после трёх рёбер: просмотрены только друзья пользователя 2
+        assertArrayEquals(new long[]{5, 6}, graph.suggestions(1L, 10, 3, deadline));
+        assertArrayEquals(new long[]{}, graph.suggestions(42L, 10, 1000, deadline));
+    }
+}
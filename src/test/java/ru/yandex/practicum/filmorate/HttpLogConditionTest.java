@@ -0,0 +1,83 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.zalando.logbook.Correlation;
+import org.zalando.logbook.HttpLogWriter;
+import org.zalando.logbook.Precorrelation;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+public class HttpLogConditionTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private RecordingHttpLogWriter writer;
+
+    @BeforeEach
+    void beforeEach() {
+        writer.written.clear();
+    }
+
+    @Test
+    void ndjsonExportIsNotLogged() throws Exception {
+        MvcResult result = mockMvc.perform(get("/films").accept(MediaType.APPLICATION_NDJSON)).andReturn();
+        mockMvc.perform(asyncDispatch(result)).andExpect(status().isOk());
+
+        assertEquals(List.of(), writer.written);
+    }
+
+    @Test
+    void jsonListIsLogged() throws Exception {
+        mockMvc.perform(get("/films").accept(MediaType.APPLICATION_JSON)).andExpect(status().isOk());
+
+        assertFalse(writer.written.isEmpty());
+    }
+
+    @TestConfiguration
+    static class WriterConfiguration {
+
+        @Bean
+        RecordingHttpLogWriter recordingHttpLogWriter() {
+            return new RecordingHttpLogWriter();
+        }
+    }
+
+    static class RecordingHttpLogWriter implements HttpLogWriter {
+        private final List<String> written = new CopyOnWriteArrayList<>();
+
+        @Override
+        public boolean isActive() {
+            return true;
+        }
+
+        @Override
+        public void write(Precorrelation precorrelation, String request) {
+            written.add(request);
+        }
+
+        @Override
+        public void write(Correlation correlation, String response) {
+            written.add(response);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package ru.yandex.practicum.filmorate;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.IdSet;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class IdSetTest {
+
+    @Test
+    void behavesLikeSetOfLong() {
+        IdSet ids = new IdSet();
+
+        assertTrue(ids.add(5L));
+        assertFalse(ids.add(5L));
+        assertTrue(ids.add(1L));
+        assertTrue(ids.contains(5L));
+        assertFalse(ids.contains(7L));
+        assertEquals(2, ids.size());
+        assertEquals(Set.of(1L, 5L), ids);
+        assertEquals(List.of(1L, 5L), List.copyOf(ids));
+
+        assertTrue(ids.remove(5L));
+        assertEquals(Set.of(1L), ids);
+        assertThrows(IllegalArgumentException.class, () -> ids.add(-1L));
+    }
+
+    @Test
+    void iteratorRemovesFromBitmap() {
+        IdSet ids = IdSet.of(1, 2, 3, 4, 70_000, 70_001, 0xFFFF_FFFFL);
+        Iterator<Long> iterator = ids.iterator();
+
+        assertThrows(IllegalStateException.class, iterator::remove);
+        assertTrue(ids.removeIf(id -> id % 2 == 1));
+
+        assertEquals(Set.of(2L, 4L, 70_000L), ids);
+        assertEquals(List.of(2L, 4L, 70_000L), List.copyOf(ids));
+        assertFalse(ids.contains(0xFFFF_FFFFL));
+    }
+
+    @Test
+    void intersectsWithoutMaterializingBoxes() {
+        IdSet first = IdSet.of(1, 2, 3, 100_000);
+        IdSet second = IdSet.of(2, 3, 4, 100_000);
+
+        assertEquals(IdSet.of(2, 3, 100_000), first.and(second));
+        assertEquals(3, first.andCardinality(second));
+    }
+
+    @Test
+    void keepsJsonContractOfFilmLikes() throws Exception {
+        ObjectMapper mapper = new ObjectMapper().findAndRegisterModules();
+        Film film = Film.builder().id(1L).name("Film").build();
+        film.getLikes().add(3L);
+        film.getLikes().add(2L);
+
+        String json = mapper.writeValueAsString(film);
+        Film restored = mapper.readValue(json, Film.class);
+
+        assertTrue(json.contains("\"likes\":[2,3]"));
+        assertEquals(film.getLikes(), restored.getLikes());
+    }
+}
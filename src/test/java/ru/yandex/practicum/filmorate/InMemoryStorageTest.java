@@ -0,0 +1,175 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.exception.DuplicatedDataException;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.inmemory.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.inmemory.InMemoryUserStorage;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class InMemoryStorageTest {
+
+    private InMemoryUserStorage userStorage;
+    private InMemoryFilmStorage filmStorage;
+
+    @BeforeEach
+    void beforeEach() {
+        userStorage = new InMemoryUserStorage();
+        filmStorage = new InMemoryFilmStorage(userStorage);
+    }
+
+    @Test
+    void concurrentCreatesGetUniqueIds() throws Exception {
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < 1000; i++) {
+            int n = i;
+            executor.submit(() -> {
+                ids.add(userStorage.create(user(n)).getId());
+                return null;
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(1000, ids.size());
+        assertEquals(1000, userStorage.findAll().size());
+    }
+
+    @Test
+    void duplicatedEmailOrLoginIsRejected() throws Exception {
+        userStorage.create(user(1));
+        User sameEmail = user(2);
+        sameEmail.setEmail("user1@mail.ru");
+        User sameLogin = user(3);
+        sameLogin.setLogin("user1");
+
+        assertThrows(DuplicatedDataException.class, () -> userStorage.create(sameEmail));
+        assertThrows(DuplicatedDataException.class, () -> userStorage.create(sameLogin));
+        assertEquals(1, userStorage.findAll().size());
+    }
+
+    @Test
+    void failedUpdateKeepsEmailAndLoginIndexed() throws Exception {
+        User first = userStorage.create(user(1));
+        userStorage.create(user(2));
+        User changed = user(1);
+        changed.setId(first.getId());
+        changed.setEmail("new@mail.ru");
+        changed.setLogin("user2");
+
+        assertThrows(DuplicatedDataException.class, () -> userStorage.update(changed));
+
+        User sameEmail = user(3);
+        sameEmail.setEmail("user1@mail.ru");
+        assertThrows(DuplicatedDataException.class, () -> userStorage.create(sameEmail));
+        User takesNewEmail = user(4);
+        takesNewEmail.setEmail("new@mail.ru");
+        userStorage.create(takesNewEmail);
+        assertEquals("user1@mail.ru", userStorage.findUserById(first.getId()).orElseThrow().getEmail());
+    }
+
+    @Test
+    void likesDriveFindPopularFilms() throws Exception {
+        User first = userStorage.create(user(1));
+        User second = userStorage.create(user(2));
+        Film unpopular = filmStorage.create(film("Unpopular"));
+        Film popular = filmStorage.create(film("Popular"));
+
+        filmStorage.addLike(popular.getId(), first.getId());
+        filmStorage.addLike(popular.getId(), first.getId());
+        filmStorage.addLike(popular.getId(), second.getId());
+        filmStorage.addLike(unpopular.getId(), first.getId());
+        filmStorage.deleteLike(unpopular.getId(), first.getId());
+
+        List<Film> top = List.copyOf(filmStorage.findPopularFilms(2));
+        assertEquals(popular.getId(), top.get(0).getId());
+        assertEquals(Set.of(first.getId(), second.getId()), top.get(0).getLikes());
+        assertTrue(filmStorage.verifyPopularity().isEmpty());
+        assertThrows(NotFoundException.class, () -> filmStorage.addLike(popular.getId(), 42L));
+    }
+
+    @Test
+    void versionsChangeOnlyWithFilm() throws Exception {
+        User first = userStorage.create(user(1));
+        Film liked = filmStorage.create(film("Liked"));
+        Film other = filmStorage.create(film("Other"));
+        long likedVersion = filmStorage.version(liked.getId());
+        long otherVersion = filmStorage.version(other.getId());
+        long catalogVersion = filmStorage.version();
+
+        filmStorage.addLike(liked.getId(), first.getId());
+
+        assertTrue(filmStorage.version(liked.getId()) > likedVersion);
+        assertEquals(otherVersion, filmStorage.version(other.getId()));
+        assertTrue(filmStorage.version() > catalogVersion);
+
+        filmStorage.rebuildPopularity();
+
+        assertTrue(filmStorage.version(other.getId()) > otherVersion);
+    }
+
+    @Test
+    void findByIdsKeepsRequestOrderAndSkipsMissing() throws Exception {
+        User first = userStorage.create(user(1));
+        User second = userStorage.create(user(2));
+        Film firstFilm = filmStorage.create(film("First"));
+        Film secondFilm = filmStorage.create(film("Second"));
+
+        List<Film> films = filmStorage.findFilmsByIds(List.of(secondFilm.getId(), 42L, firstFilm.getId()));
+        List<User> users = userStorage.findUsersByIds(List.of(42L, second.getId(), first.getId()));
+
+        assertEquals(List.of(secondFilm.getId(), firstFilm.getId()), films.stream().map(Film::getId).toList());
+        assertEquals(List.of(second.getId(), first.getId()), users.stream().map(User::getId).toList());
+    }
+
+    @Test
+    void mutualFriendsAreIntersection() throws Exception {
+        User first = userStorage.create(user(1));
+        User second = userStorage.create(user(2));
+        User common = userStorage.create(user(3));
+        userStorage.addFriend(first.getId(), common.getId());
+        userStorage.addFriend(second.getId(), common.getId());
+        userStorage.addFriend(first.getId(), second.getId());
+
+        List<User> mutual = userStorage.findMutualFriends(first.getId(), second.getId());
+
+        assertEquals(List.of(common.getId()), mutual.stream().map(User::getId).toList());
+        assertEquals(2, userStorage.findAllFriends(first.getId()).size());
+        assertThrows(NotFoundException.class, () -> userStorage.addFriend(first.getId(), 42L));
+    }
+
+    private User user(int n) {
+        return User.builder()
+                .email("user" + n + "@mail.ru")
+                .login("user" + n)
+                .name("User " + n)
+                .birthday(LocalDate.of(1990, 1, 1))
+                .build();
+    }
+
+    private Film film(String name) {
+        return Film.builder()
+                .name(name)
+                .description("description")
+                .releaseDate(LocalDate.of(2000, 1, 1))
+                .duration(100)
+                .mpa(new Mpa(1, "G"))
+                .build();
+    }
+}
@@ -0,0 +1,77 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.IdSet;
+import ru.yandex.practicum.filmorate.storage.index.LikeMatrix;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class LikeMatrixTest {
+
+    @Test
+    void recommendsFilmsOfSimilarUsers() {
+        LikeMatrix matrix = new LikeMatrix();
+        matrix.reset(Map.of(
+                1L, IdSet.of(10, 11),
+                2L, IdSet.of(10, 11, 12),
+                3L, IdSet.of(10, 13)));
+        matrix.set(4L, 14L, true);
+
+        assertEquals(List.of(12L, 13L), matrix.recommend(1L, 10));
+        assertEquals(List.of(12L), matrix.recommend(1L, 1));
+
+        matrix.set(2L, 12L, false);
+
+        assertEquals(List.of(13L), matrix.recommend(1L, 10));
+        assertEquals(List.of(), matrix.recommend(4L, 10));
+        assertEquals(List.of(), matrix.recommend(42L, 10));
+    }
+
+    @Test
+    void scoresManyCandidatesInParallel() {
+        Map<Long, IdSet> likes = new HashMap<>();
+        likes.put(0L, IdSet.of(1, 2));
+        for (long userId = 1; userId <= 5000; userId++) {
+            likes.put(userId, IdSet.of(1));
+        }
+        likes.put(5001L, IdSet.of(1, 2, 3));
+        LikeMatrix matrix = new LikeMatrix();
+        matrix.reset(likes);
+
+        assertEquals(List.of(3L), matrix.recommend(0L, 10));
+    }
+
+    @Test
+    void likesDoNotWaitForRunningRecommendations() throws Exception {
+        Map<Long, IdSet> likes = new HashMap<>();
+        for (long userId = 1; userId <= 3000; userId++) {
+            likes.put(userId, IdSet.of(1, userId % 50 + 2));
+        }
+        likes.put(1L, IdSet.of(1));
+        LikeMatrix matrix = new LikeMatrix();
+        matrix.reset(likes);
+        AtomicBoolean running = new AtomicBoolean(true);
+        Thread reader = new Thread(() -> {
+            while (running.get()) {
+                matrix.recommend(1L, 10);
+            }
+        });
+        reader.start();
+
+        for (long userId = 1; userId <= 3000; userId++) {
+            matrix.set(userId, 1, false);
+            matrix.set(userId, 1, true);
+        }
+        running.set(false);
+        reader.join(TimeUnit.SECONDS.toMillis(10));
+
+        assertEquals(10, matrix.recommend(1L, 10).size());
+        assertEquals(IdSet.of(1), likes.get(1L));
+    }
+}
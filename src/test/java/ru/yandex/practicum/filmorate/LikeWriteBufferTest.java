@@ -0,0 +1,121 @@
+package ru.yandex.practicum.filmorate;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.dao.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.dao.LikeWriteBuffer;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LikeWriteBufferTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private FilmDbStorage filmStorage;
+    private LikeWriteBuffer buffer;
+    private DataSourceTransactionManager transactionManager;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void beforeEach() {
+        TestDatabase database = new TestDatabase().withUsers(3).withFilms(3);
+        jdbcTemplate = database.jdbcTemplate();
+        filmStorage = new FilmDbStorage(jdbcTemplate, database.userStorage(), database.genreStorage());
+        transactionManager = database.transactionManager();
+        meterRegistry = new SimpleMeterRegistry();
+        buffer = new LikeWriteBuffer(jdbcTemplate, transactionManager, meterRegistry, 200, 100, 4);
+        filmStorage.setLikeBuffer(buffer);
+        filmStorage.init();
+    }
+
+    @Test
+    void bufferedLikesAreVisibleBeforeFlushAndCoalesced() throws Exception {
+        filmStorage.addLike(3L, 1L);
+        filmStorage.addLike(3L, 2L);
+        filmStorage.addLike(2L, 1L);
+        filmStorage.deleteLike(2L, 1L);
+        filmStorage.addLike(2L, 3L);
+
+        assertEquals(0, likesInDb());
+        assertEquals(List.of(3L, 2L), filmStorage.findPopularFilms(2).stream().map(Film::getId).toList());
+        assertEquals(Set.of(1L, 2L), filmStorage.findFilmById(3L).orElseThrow().getLikes());
+
+        buffer.flush();
+
+        assertEquals(3, likesInDb());
+        assertEquals(2, jdbcTemplate.queryForObject("SELECT like_count FROM films WHERE film_id = 3", Integer.class));
+        assertTrue(filmStorage.verifyPopularity().isEmpty());
+    }
+
+    @Test
+    void missingFilmOrUserIsStillNotFound() {
+        assertThrows(NotFoundException.class, () -> filmStorage.addLike(42L, 1L));
+        assertThrows(NotFoundException.class, () -> filmStorage.deleteLike(1L, 42L));
+    }
+
+    @Test
+    void flushDoesNotJoinCallerTransaction() throws Exception {
+        filmStorage.addLike(1L, 1L);
+        filmStorage.addLike(1L, 2L);
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            buffer.flush();
+            status.setRollbackOnly();
+        });
+
+        assertEquals(2, likesInDb());
+        assertTrue(filmStorage.verifyPopularity().isEmpty());
+    }
+
+    @Test
+    void fullBufferWritesNewPairsThrough() throws Exception {
+        filmStorage.addLike(1L, 1L);
+        filmStorage.addLike(1L, 2L);
+        filmStorage.addLike(2L, 1L);
+        filmStorage.addLike(3L, 1L);
+        assertEquals(0, likesInDb());
+
+        filmStorage.addLike(2L, 2L);
+        filmStorage.deleteLike(1L, 1L);
+
+        assertEquals(1, likesInDb());
+        assertEquals(1, meterRegistry.get("filmorate.likes.buffer.bypassed").counter().count());
+        assertEquals(List.of(2L, 1L), filmStorage.findPopularFilms(2).stream().map(Film::getId).toList());
+
+        buffer.flush();
+
+        assertEquals(4, likesInDb());
+        assertTrue(filmStorage.verifyPopularity().isEmpty());
+    }
+
+    @Test
+    void skippedWritesAreReconciledInRecommendations() throws Exception {
+        filmStorage.addLike(1L, 1L);
+        filmStorage.addLike(1L, 3L);
+        filmStorage.addLike(2L, 3L);
+        // пользователь удалён до сброса: его лайки БД не применит
+        jdbcTemplate.update("DELETE FROM users WHERE user_id = 3");
+
+        buffer.flush();
+
+        assertEquals(1, likesInDb());
+        assertEquals(List.of(), filmStorage.findRecommendations(1L, 10).stream().map(Film::getId).toList());
+        assertEquals(1, meterRegistry.get("filmorate.likes.buffer.written").tag("operation", "insert")
+                .counter().count());
+        assertTrue(filmStorage.verifyPopularity().isEmpty());
+    }
+
+    private int likesInDb() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM likes", Integer.class);
+    }
+}
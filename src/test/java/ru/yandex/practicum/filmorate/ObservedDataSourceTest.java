@@ -0,0 +1,43 @@
+package ru.yandex.practicum.filmorate;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.jdbc.ObservedDataSource;
+import ru.yandex.practicum.filmorate.jdbc.StatementExecution;
+import ru.yandex.practicum.filmorate.jdbc.StatementListener;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class ObservedDataSourceTest {
+
+    @Test
+    void reportsEveryExecutedStatement() throws Exception {
+        JdbcDataSource h2 = new JdbcDataSource();
+        h2.setURL("jdbc:h2:mem:observed;DB_CLOSE_DELAY=-1");
+        List<StatementExecution> executions = new ArrayList<>();
+        StatementListener listener = executions::add;
+        ObservedDataSource dataSource = new ObservedDataSource(h2, () -> List.of(listener));
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+
+        jdbcTemplate.execute("CREATE TABLE t (id INT PRIMARY KEY)");
+        jdbcTemplate.batchUpdate("INSERT INTO t VALUES (?)", List.of(new Object[]{1}, new Object[]{2}));
+        assertEquals(2, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM t WHERE id > ?", Integer.class, 0));
+        assertThrows(Exception.class, () -> jdbcTemplate.update("INSERT INTO t VALUES (?)", 1));
+
+        assertEquals(List.of("CREATE TABLE t (id INT PRIMARY KEY)", "INSERT INTO t VALUES (?)",
+                "SELECT COUNT(*) FROM t WHERE id > ?", "INSERT INTO t VALUES (?)"),
+                executions.stream().map(StatementExecution::sql).toList());
+        assertEquals(List.of("[]", "[Integer] x 2", "[Integer]", "[Integer]"),
+                executions.stream().map(StatementExecution::parameterShape).toList());
+        assertEquals(2, executions.get(1).rows());
+        assertEquals(1, executions.get(2).rows());
+        assertEquals(1, executions.stream().filter(execution -> execution.error() != null).count());
+        assertSame(h2, dataSource.unwrap(JdbcDataSource.class));
+    }
+}
@@ -0,0 +1,86 @@
+package ru.yandex.practicum.filmorate;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.yandex.practicum.filmorate.jdbc.DataSourceRoute;
+import ru.yandex.practicum.filmorate.jdbc.ReadWriteRoutingDataSource;
+import ru.yandex.practicum.filmorate.jdbc.ReplicaRead;
+import ru.yandex.practicum.filmorate.jdbc.ReplicaReadAspect;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class ReadWriteRoutingTest {
+    private ReadWriteRoutingDataSource dataSource;
+    private Reader reader;
+
+    @BeforeEach
+    void beforeEach() {
+        dataSource = new ReadWriteRoutingDataSource(h2("primary"), h2("replica"));
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        AspectJProxyFactory factory = new AspectJProxyFactory(new Reader(jdbcTemplate));
+        factory.setProxyTargetClass(true);
+        factory.addAspect(new ReplicaReadAspect());
+        reader = factory.getProxy();
+    }
+
+    @AfterEach
+    void afterEach() {
+        DataSourceRoute.pinToPrimary(false);
+    }
+
+    @Test
+    void replicaReadsGoToReplicaOnly() {
+        assertEquals("replica", reader.readFromReplica());
+        assertEquals("primary", reader.read());
+        assertEquals(DataSourceRoute.PRIMARY, DataSourceRoute.current());
+    }
+
+    @Test
+    void pinnedThreadReadsItsWritesFromPrimary() {
+        DataSourceRoute.pinToPrimary(true);
+        assertEquals("primary", reader.readFromReplica());
+
+        DataSourceRoute.pinToPrimary(false);
+        assertEquals("replica", reader.readFromReplica());
+    }
+
+    @Test
+    void openTransactionKeepsItsDataSource() {
+        TransactionTemplate transaction = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+
+        assertEquals("primary", transaction.execute(status -> reader.readFromReplica()));
+    }
+
+    private static JdbcDataSource h2(String name) {
+        JdbcDataSource h2 = new JdbcDataSource();
+        h2.setURL("jdbc:h2:mem:routing-" + name + ";DB_CLOSE_DELAY=-1");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(h2);
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS origin (name VARCHAR(16))");
+        jdbcTemplate.update("DELETE FROM origin");
+        jdbcTemplate.update("INSERT INTO origin VALUES (?)", name);
+        return h2;
+    }
+
+    public static class Reader {
+        private final JdbcTemplate jdbcTemplate;
+
+        public Reader(JdbcTemplate jdbcTemplate) {
+            this.jdbcTemplate = jdbcTemplate;
+        }
+
+        @ReplicaRead
+        public String readFromReplica() {
+            return read();
+        }
+
+        public String read() {
+            return jdbcTemplate.queryForObject("SELECT name FROM origin", String.class);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package ru.yandex.practicum.filmorate;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.zalando.logbook.Correlation;
+import org.zalando.logbook.HttpRequest;
+import org.zalando.logbook.HttpResponse;
+import org.zalando.logbook.Logbook;
+import org.zalando.logbook.Precorrelation;
+import org.zalando.logbook.Sink;
+import org.zalando.logbook.servlet.LogbookFilter;
+import ru.yandex.practicum.filmorate.logging.SampledHttpLogStrategy;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class SampledHttpLogStrategyTest {
+    private static final byte[] LARGE_BODY = "[".concat("{\"id\":1},".repeat(10_000)).concat("{}]")
+            .getBytes(StandardCharsets.UTF_8);
+
+    private final List<String> bodies = new ArrayList<>();
+
+    @Test
+    void largeGetBodyIsNotBuffered() throws Exception {
+        MockHttpServletResponse response = exchange(filter(1, List.of()), "GET", "/films", 200, LARGE_BODY);
+
+        assertEquals(LARGE_BODY.length, response.getContentAsByteArray().length);
+        assertEquals(List.of(""), bodies);
+    }
+
+    @Test
+    void getBodyIsBufferedForListedRoutes() throws Exception {
+        byte[] genres = "[{\"id\":1,\"name\":\"Комедия\"}]".getBytes(StandardCharsets.UTF_8);
+
+        exchange(filter(1, List.of("/genres")), "GET", "/genres", 200, genres);
+
+        assertEquals(List.of(new String(genres, StandardCharsets.UTF_8)), bodies);
+    }
+
+    @Test
+    void errorsAreWrittenRegardlessOfSampling() throws Exception {
+        LogbookFilter filter = filter(0, List.of());
+
+        exchange(filter, "GET", "/films", 200, LARGE_BODY);
+        exchange(filter, "POST", "/films", 400, "{\"error\":\"bad\"}".getBytes(StandardCharsets.UTF_8));
+
+        assertEquals(List.of("{\"error\":\"bad\"}"), bodies);
+    }
+
+    private LogbookFilter filter(double sampleRate, List<String> getBodyRoutes) {
+        Sink sink = new Sink() {
+            @Override
+            public void write(Precorrelation precorrelation, HttpRequest request) {
+            }
+
+            @Override
+            public void write(Correlation correlation, HttpRequest request, HttpResponse response)
+                    throws IOException {
+                bodies.add(response.getBodyAsString());
+            }
+        };
+        return new LogbookFilter(Logbook.builder()
+                .strategy(new SampledHttpLogStrategy(sampleRate, Map.of(), 400, getBodyRoutes))
+                .sink(sink)
+                .build());
+    }
+
+    private MockHttpServletResponse exchange(LogbookFilter filter, String method, String path, int status, byte[] body)
+            throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, path);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        FilterChain chain = (servletRequest, servletResponse) -> {
+            ((HttpServletResponse) servletResponse).setStatus(status);
+            servletResponse.setContentType("application/json");
+            servletResponse.getOutputStream().write(body);
+        };
+        filter.doFilter(request, response, chain);
+        return response;
+    }
+}
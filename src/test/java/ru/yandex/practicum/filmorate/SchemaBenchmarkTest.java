@@ -0,0 +1,152 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Сравнение запросов хранилищ на схеме до v2 и после (ключи и индексы в likes, friends, film_genre).
+ * Запуск: mvn test -Dtest=SchemaBenchmarkTest -Dbenchmark=true [-Dbench.users=20000 -Dbench.films=5000
+ * -Dbench.likes=200000 -Dbench.friends=100000]
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class SchemaBenchmarkTest {
+    private static final int USERS = Integer.getInteger("bench.users", 20_000);
+    private static final int FILMS = Integer.getInteger("bench.films", 5_000);
+    private static final int LIKES = Integer.getInteger("bench.likes", 200_000);
+    private static final int FRIENDS = Integer.getInteger("bench.friends", 100_000);
+    private static final int ITERATIONS = 200;
+
+    private static final Map<String, String> QUERIES = new LinkedHashMap<>();
+
+    static {
+        QUERIES.put("likes of 100 films", "SELECT film_id, user_id FROM likes WHERE film_id IN (" + ids(100) + ")");
+        QUERIES.put("genres of 100 films", "SELECT fg.film_id, g.genre_id, g.genre_name FROM film_genre AS fg" +
+                " JOIN genre AS g ON g.genre_id = fg.genre_id WHERE fg.film_id IN (" + ids(100) + ")");
+        QUERIES.put("like exists", "SELECT EXISTS (SELECT 1 FROM likes WHERE film_id = ? AND user_id = ?)");
+        QUERIES.put("films liked by user", "SELECT film_id FROM likes WHERE user_id = ?");
+        QUERIES.put("friends of user", "SELECT u.user_id, u.email, u.login, u.name, u.birthday " +
+                "FROM friends AS f INNER JOIN users AS u ON u.user_id = f.friend_id WHERE f.user_id = ? ORDER BY u.user_id");
+        QUERIES.put("top 10 by likes", "SELECT f.film_id FROM films AS f LEFT JOIN likes ON f.film_id = likes.film_id " +
+                "GROUP BY f.film_id ORDER BY COUNT(likes.film_id) DESC LIMIT 10");
+    }
+
+    @Test
+    void compareSchemas() throws SQLException {
+        Map<String, Double> before = run("bench/schema-v1.sql");
+        Map<String, Double> after = run("schema.sql");
+
+        System.out.printf("%nusers=%d films=%d likes=%d friends=%d, us per query%n", USERS, FILMS, LIKES, FRIENDS);
+        System.out.printf("%-22s %12s %12s %8s%n", "query", "v1", "v2", "x");
+        QUERIES.keySet().forEach(name -> System.out.printf("%-22s %12.1f %12.1f %8.1f%n",
+                name, before.get(name), after.get(name), before.get(name) / after.get(name)));
+    }
+
+    private Map<String, Double> run(String schema) throws SQLException {
+        String url = "jdbc:h2:mem:bench-" + schema.hashCode() + ";OPTIMIZE_REUSE_RESULTS=FALSE";
+        try (Connection connection = DriverManager.getConnection(url)) {
+            ScriptUtils.executeSqlScript(connection, new ClassPathResource(schema));
+            ScriptUtils.executeSqlScript(connection, new ClassPathResource("data.sql"));
+            seed(connection);
+
+            Map<String, Double> results = new LinkedHashMap<>();
+            for (Map.Entry<String, String> query : QUERIES.entrySet()) {
+                try (PreparedStatement ps = connection.prepareStatement(query.getValue())) {
+                    Random random = new Random(7);
+                    for (int i = 0; i < ITERATIONS / 4; i++) {
+                        execute(ps, random);
+                    }
+                    long start = System.nanoTime();
+                    for (int i = 0; i < ITERATIONS; i++) {
+                        execute(ps, random);
+                    }
+                    results.put(query.getKey(), (System.nanoTime() - start) / 1000.0 / ITERATIONS);
+                }
+            }
+            return results;
+        }
+    }
+
+    private void execute(PreparedStatement ps, Random random) throws SQLException {
+        int parameters = ps.getParameterMetaData().getParameterCount();
+        if (parameters == 2) {
+            ps.setInt(1, 1 + random.nextInt(FILMS));
+            ps.setInt(2, 1 + random.nextInt(USERS));
+        } else if (parameters == 1) {
+            ps.setInt(1, 1 + random.nextInt(USERS));
+        } else {
+            for (int i = 1; i <= parameters; i++) {
+                ps.setInt(i, 1 + random.nextInt(FILMS));
+            }
+        }
+        try (ResultSet resultSet = ps.executeQuery()) {
+            while (resultSet.next()) {
+                resultSet.getInt(1);
+            }
+        }
+    }
+
+    private void seed(Connection connection) throws SQLException {
+        connection.setAutoCommit(false);
+        try (PreparedStatement ps = connection.prepareStatement(
+                "INSERT INTO users (email, login, name, birthday) VALUES (?, ?, ?, DATE '1990-01-01')")) {
+            for (int i = 1; i <= USERS; i++) {
+                ps.setString(1, "user" + i + "@mail.ru");
+                ps.setString(2, "user" + i);
+                ps.setString(3, "User " + i);
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+        try (PreparedStatement ps = connection.prepareStatement("INSERT INTO films (name, description, releaseDate, " +
+                "duration, rating_id) VALUES (?, 'description', TIMESTAMP '2000-01-01 00:00:00', 100, ?)")) {
+            for (int i = 1; i <= FILMS; i++) {
+                ps.setString(1, "Film " + i);
+                ps.setInt(2, 1 + i % 5);
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+        Random random = new Random(42);
+        insertPairs(connection, "INSERT INTO film_genre (film_id, genre_id) VALUES (?, ?)", FILMS * 2, FILMS, 6, random);
+        insertPairs(connection, "INSERT INTO likes (film_id, user_id) VALUES (?, ?)", LIKES, FILMS, USERS, random);
+        insertPairs(connection, "INSERT INTO friends (user_id, friend_id, status) VALUES (?, ?, false)",
+                FRIENDS, USERS, USERS, random);
+        connection.commit();
+        connection.setAutoCommit(true);
+    }
+
+    private void insertPairs(Connection connection, String sql, int count, int firstBound, int secondBound,
+                             Random random) throws SQLException {
+        Set<Long> seen = new HashSet<>();
+        try (PreparedStatement ps = connection.prepareStatement(sql)) {
+            while (seen.size() < count) {
+                int first = 1 + random.nextInt(firstBound);
+                int second = 1 + random.nextInt(secondBound);
+                if (seen.add((long) first << 32 | second)) {
+                    ps.setInt(1, first);
+                    ps.setInt(2, second);
+                    ps.addBatch();
+                }
+            }
+            ps.executeBatch();
+        }
+    }
+
+    private static String ids(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+}
@@ -0,0 +1,55 @@
+package ru.yandex.practicum.filmorate;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.jdbc.ObservedDataSource;
+import ru.yandex.practicum.filmorate.metrics.SqlStatementReport;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SqlStatementReportTest {
+
+    @Test
+    void aggregatesStatementsAndCapturesPlans() throws Exception {
+        JdbcDataSource h2 = new JdbcDataSource();
+        h2.setURL("jdbc:h2:mem:report;DB_CLOSE_DELAY=-1");
+        JdbcTemplate plain = new JdbcTemplate(h2);
+        DefaultListableBeanFactory beans = new DefaultListableBeanFactory();
+        beans.registerSingleton("jdbcTemplate", plain);
+        SqlStatementReport report = new SqlStatementReport(beans.getBeanProvider(JdbcTemplate.class), 0, true, 100);
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(new ObservedDataSource(h2, () -> List.of(report)));
+
+        jdbcTemplate.execute("CREATE TABLE t (id INT PRIMARY KEY)");
+        jdbcTemplate.batchUpdate("INSERT INTO t VALUES (?)", List.of(new Object[]{1}, new Object[]{2}, new Object[]{3}));
+        jdbcTemplate.queryForList("SELECT id FROM t WHERE id IN (?, ?)", Integer.class, 1, 2);
+        jdbcTemplate.queryForList("SELECT id FROM t WHERE id IN (?, ?, ?)", Integer.class, 1, 2, 3);
+
+        SqlStatementReport.Summary select = report.top(10).stream()
+                .filter(summary -> summary.sql().startsWith("SELECT"))
+                .findFirst()
+                .orElseThrow();
+        assertEquals("SELECT id FROM t WHERE id IN (?...)", select.sql());
+        assertEquals(2, select.count());
+        assertEquals(5, select.rows());
+        assertEquals(Set.of("[Integer, Integer]", "[Integer, Integer, Integer]"), select.parameterShapes());
+        assertEquals(3, report.top(10).size());
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (report.top(10).stream().allMatch(summary -> summary.plan() == null)
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertTrue(report.top(10).stream().anyMatch(summary -> summary.plan() != null
+                && summary.plan().toUpperCase().contains("SELECT")));
+
+        report.reset();
+        assertTrue(report.top(10).isEmpty());
+        report.stop();
+    }
+}
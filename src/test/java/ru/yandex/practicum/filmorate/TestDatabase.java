@@ -0,0 +1,90 @@
+package ru.yandex.practicum.filmorate;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.yandex.practicum.filmorate.storage.cache.CachedGenreStorage;
+import ru.yandex.practicum.filmorate.storage.cache.CachedMpaStorage;
+import ru.yandex.practicum.filmorate.storage.dao.GenreDbStorage;
+import ru.yandex.practicum.filmorate.storage.dao.MpaDbStorage;
+import ru.yandex.practicum.filmorate.storage.dao.UserDbStorage;
+
+import javax.sql.DataSource;
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * Отдельная H2 в памяти со схемой и справочниками приложения — для тестов хранилищ без контекста Spring.
+ */
+public final class TestDatabase {
+    private final JdbcDataSource dataSource = new JdbcDataSource();
+    private final JdbcTemplate jdbcTemplate;
+    private final DataSourceTransactionManager transactionManager;
+
+    public TestDatabase() {
+        dataSource.setURL("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        new ResourceDatabasePopulator(new ClassPathResource("schema.sql"), new ClassPathResource("data.sql"))
+                .execute(dataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        transactionManager = new DataSourceTransactionManager(dataSource);
+    }
+
+    public DataSource dataSource() {
+        return dataSource;
+    }
+
+    public JdbcTemplate jdbcTemplate() {
+        return jdbcTemplate;
+    }
+
+    public DataSourceTransactionManager transactionManager() {
+        return transactionManager;
+    }
+
+    public TransactionTemplate transactionTemplate() {
+        return new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Добавляет пользователей user1..userN с id 1..N.
+     */
+    public TestDatabase withUsers(int count) {
+        for (int i = 1; i <= count; i++) {
+            jdbcTemplate.update("INSERT INTO users (email, login, name, birthday) VALUES (?, ?, ?, ?)",
+                    "user" + i + "@mail.ru", "user" + i, "User " + i, LocalDate.of(1990, 1, 1));
+        }
+        return this;
+    }
+
+    /**
+     * Добавляет фильмы «Film 1»..«Film N» с рейтингом 1 в обход хранилища — его индексы строятся позже, в init().
+     */
+    public TestDatabase withFilms(int count) {
+        for (int i = 1; i <= count; i++) {
+            jdbcTemplate.update("INSERT INTO films (name, description, releaseDate, duration, rating_id) " +
+                    "VALUES (?, ?, ?, ?, ?)", "Film " + i, "description", LocalDate.of(2000, 1, 1), 100, 1);
+        }
+        return this;
+    }
+
+    public UserDbStorage userStorage() {
+        UserDbStorage userStorage = new UserDbStorage(jdbcTemplate);
+        userStorage.init();
+        return userStorage;
+    }
+
+    public CachedGenreStorage genreStorage() {
+        CachedGenreStorage genreStorage = new CachedGenreStorage(new GenreDbStorage(jdbcTemplate));
+        genreStorage.refresh();
+        return genreStorage;
+    }
+
+    public CachedMpaStorage mpaStorage() {
+        CachedMpaStorage mpaStorage = new CachedMpaStorage(new MpaDbStorage(jdbcTemplate));
+        mpaStorage.refresh();
+        return mpaStorage;
+    }
+}
@@ -0,0 +1,165 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Нагрузка на платформенные потоки Tomcat и на виртуальные потоки при одном и том же пуле соединений.
+ * Смесь запросов: популярные фильмы, фильм по id, друзья пользователя, лайк. Режимы чередуются,
+ * в отчёт идёт последний раунд.
+ * Запуск: mvn test -Dtest=ThreadModelLoadTest -Dbenchmark=true [-Dload.clients=400 -Dload.seconds=15
+ * -Dload.pool=10 -Dload.rounds=3]
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class ThreadModelLoadTest {
+    private static final int CLIENTS = Integer.getInteger("load.clients", 400);
+    private static final int SECONDS = Integer.getInteger("load.seconds", 15);
+    private static final int POOL = Integer.getInteger("load.pool", 10);
+    private static final int ROUNDS = Integer.getInteger("load.rounds", 3);
+    private static final int USERS = 2_000;
+    private static final int FILMS = 1_000;
+
+    @Test
+    void comparePlatformAndVirtualThreads() throws Exception {
+        Result platform = null;
+        Result virtual = null;
+        // Первые раунды прогревают JIT, иначе второй режим всегда выигрывает у первого
+        for (int round = 0; round < ROUNDS; round++) {
+            platform = run(false);
+            virtual = run(true);
+        }
+
+        System.out.printf("%nclients=%d seconds=%d pool=%d%n", CLIENTS, SECONDS, POOL);
+        System.out.printf("%-10s %10s %10s %10s %8s%n", "threads", "req/s", "p50 ms", "p99 ms", "errors");
+        System.out.println(platform.format("platform"));
+        System.out.println(virtual.format("virtual"));
+    }
+
+    private Result run(boolean virtualThreads) throws Exception {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(FilmorateApplication.class)
+                .properties("server.port=0",
+                        "spring.datasource.url=jdbc:h2:mem:load-" + virtualThreads + ";DB_CLOSE_DELAY=-1",
+                        "spring.threads.virtual.enabled=" + virtualThreads,
+                        "spring.datasource.hikari.maximum-pool-size=" + POOL)
+                .run()) {
+            seed(context);
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+            request(client, port, Duration.ofSeconds(3).toNanos());
+            return request(client, port, Duration.ofSeconds(SECONDS).toNanos());
+        }
+    }
+
+    private void seed(ConfigurableApplicationContext context) {
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        List<Object[]> users = new ArrayList<>();
+        for (int i = 1; i <= USERS; i++) {
+            users.add(new Object[]{"user" + i + "@mail.ru", "user" + i, "User " + i, LocalDate.of(1990, 1, 1)});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO users (email, login, name, birthday) VALUES (?, ?, ?, ?)", users);
+        List<Object[]> films = new ArrayList<>();
+        for (int i = 1; i <= FILMS; i++) {
+            films.add(new Object[]{"Film " + i, "Description", LocalDate.of(2000, 1, 1), 100, i % 5 + 1});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO films (name, description, releaseDate, duration, rating_id) " +
+                "VALUES (?, ?, ?, ?, ?)", films);
+        List<Object[]> friends = new ArrayList<>();
+        for (int i = 1; i <= USERS; i++) {
+            for (int j = 1; j <= 20; j++) {
+                friends.add(new Object[]{i, (i + j * 37) % USERS + 1});
+            }
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO friends (user_id, friend_id, status) VALUES (?, ?, false)", friends);
+        context.getBean("FilmDbStorage", FilmStorage.class).rebuildPopularity();
+    }
+
+    private Result request(HttpClient client, int port, long durationNanos) throws Exception {
+        long deadline = System.nanoTime() + durationNanos;
+        List<Future<long[]>> workers = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < CLIENTS; i++) {
+                workers.add(executor.submit(() -> worker(client, port, deadline)));
+            }
+        }
+        List<Long> latencies = new ArrayList<>();
+        long errors = 0;
+        for (Future<long[]> worker : workers) {
+            long[] result = worker.get();
+            errors += result[0];
+            for (int i = 1; i < result.length; i++) {
+                latencies.add(result[i]);
+            }
+        }
+        long[] sorted = latencies.stream().mapToLong(Long::longValue).sorted().toArray();
+        return new Result(sorted.length * 1e9 / durationNanos, percentile(sorted, 0.5), percentile(sorted, 0.99),
+                errors);
+    }
+
+    private long[] worker(HttpClient client, int port, long deadline) {
+        long[] latencies = new long[1024];
+        int count = 1;
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        while (System.nanoTime() < deadline) {
+            HttpRequest request = switch (random.nextInt(4)) {
+                case 0 -> get(port, "/films/popular?count=10");
+                case 1 -> get(port, "/films/" + (random.nextInt(FILMS) + 1));
+                case 2 -> get(port, "/users/" + (random.nextInt(USERS) + 1) + "/friends");
+                default -> HttpRequest.newBuilder(uri(port, "/films/" + (random.nextInt(FILMS) + 1) + "/like/"
+                        + (random.nextInt(USERS) + 1))).PUT(HttpRequest.BodyPublishers.noBody()).build();
+            };
+            long start = System.nanoTime();
+            try {
+                int status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                if (status >= 300) {
+                    latencies[0]++;
+                    continue;
+                }
+            } catch (Exception e) {
+                latencies[0]++;
+                continue;
+            }
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = System.nanoTime() - start;
+        }
+        return Arrays.copyOf(latencies, count);
+    }
+
+    private static HttpRequest get(int port, String path) {
+        return HttpRequest.newBuilder(uri(port, path)).GET().build();
+    }
+
+    private static URI uri(int port, String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        return sorted.length == 0 ? 0 : sorted[(int) Math.min(sorted.length - 1, sorted.length * p)] / 1e6;
+    }
+
+    private record Result(double throughput, double p50, double p99, long errors) {
+        String format(String name) {
+            return String.format("%-10s %10.0f %10.2f %10.2f %8d", name, throughput, p50, p99, errors);
+        }
+    }
+}
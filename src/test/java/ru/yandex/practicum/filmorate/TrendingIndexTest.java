@@ -0,0 +1,94 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.storage.index.TrendingIndex;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class TrendingIndexTest {
+    private static final Duration DAY = Duration.ofDays(1);
+    private static final Duration WEEK = Duration.ofDays(7);
+
+    @Test
+    void windowsRollForwardWithClock() {
+        MovingClock clock = new MovingClock(Instant.parse("2024-05-01T12:00:00Z"));
+        TrendingIndex index = new TrendingIndex(clock);
+        Instant start = clock.instant();
+        index.add(1L, start);
+        index.add(1L, start);
+        index.add(1L, start);
+
+        clock.advance(Duration.ofDays(2));
+        index.add(2L, clock.instant());
+        index.add(2L, clock.instant());
+        index.add(3L, clock.instant());
+
+        assertEquals(List.of(2L, 3L), index.top(10, DAY));
+        assertEquals(List.of(1L, 2L), index.top(2, WEEK));
+
+        index.remove(2L, clock.instant());
+        index.remove(1L, start);
+        assertEquals(List.of(1L, 2L, 3L), index.top(10, WEEK));
+        assertEquals(1, index.likes(2L, DAY));
+
+        clock.advance(Duration.ofDays(6));
+        assertEquals(List.of(2L, 3L), index.top(10, WEEK));
+        assertEquals(List.of(), index.top(10, DAY));
+    }
+
+    @Test
+    void likesOlderThanLongestWindowAreIgnored() {
+        MovingClock clock = new MovingClock(Instant.parse("2024-05-10T00:30:00Z"));
+        TrendingIndex index = new TrendingIndex(clock);
+        index.add(1L, clock.instant().minus(Duration.ofDays(8)));
+        index.remove(2L, clock.instant());
+
+        assertEquals(List.of(), index.top(10, WEEK));
+        assertEquals(0, index.likes(1L, WEEK));
+    }
+
+    @Test
+    void hugeCountIsBoundedByIndexedFilms() {
+        TrendingIndex index = new TrendingIndex();
+        index.add(1L, index.now());
+        index.add(2L, index.now());
+        index.add(2L, index.now());
+
+        assertEquals(List.of(2L, 1L), index.top(Integer.MAX_VALUE, WEEK));
+        assertEquals(List.of(), index.top(0, WEEK));
+    }
+
+    private static final class MovingClock extends Clock {
+        private Instant now;
+
+        private MovingClock(Instant now) {
+            this.now = now;
+        }
+
+        private void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
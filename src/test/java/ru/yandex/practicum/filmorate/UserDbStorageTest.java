@@ -0,0 +1,149 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.dao.UserDbStorage;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class UserDbStorageTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transactionTemplate;
+    private UserDbStorage userStorage;
+
+    @BeforeEach
+    void beforeEach() {
+        TestDatabase database = new TestDatabase();
+        jdbcTemplate = database.jdbcTemplate();
+        transactionTemplate = database.transactionTemplate();
+        userStorage = database.userStorage();
+    }
+
+    @Test
+    void friendWritesAreIdempotentAndReportMissingUsers() throws Exception {
+        User first = userStorage.create(user(1));
+        User second = userStorage.create(user(2));
+
+        userStorage.addFriend(first.getId(), second.getId());
+        userStorage.addFriend(first.getId(), second.getId());
+
+        assertEquals(1, friendRows(first.getId()));
+        assertEquals(List.of(second.getId()), friendIds(first.getId()));
+
+        userStorage.deleteFriend(first.getId(), second.getId());
+        userStorage.deleteFriend(first.getId(), second.getId());
+
+        assertEquals(0, friendRows(first.getId()));
+        assertThrows(NotFoundException.class, () -> userStorage.addFriend(first.getId(), 42L));
+        assertThrows(NotFoundException.class, () -> userStorage.addFriend(42L, first.getId()));
+        assertThrows(NotFoundException.class, () -> userStorage.deleteFriend(first.getId(), 42L));
+    }
+
+    @Test
+    void rolledBackFriendChangesDoNotReachFriendGraph() throws Exception {
+        User first = userStorage.create(user(1));
+        User second = userStorage.create(user(2));
+        User common = userStorage.create(user(3));
+        User other = userStorage.create(user(4));
+        userStorage.addFriend(first.getId(), common.getId());
+        userStorage.addFriend(other.getId(), common.getId());
+
+        transactionTemplate.executeWithoutResult(status -> {
+            try {
+                userStorage.addFriend(second.getId(), common.getId());
+                userStorage.deleteFriend(first.getId(), common.getId());
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+            status.setRollbackOnly();
+        });
+
+        assertEquals(List.of(common), userStorage.findMutualFriends(first.getId(), other.getId()));
+        assertEquals(List.of(), userStorage.findMutualFriends(second.getId(), other.getId()));
+    }
+
+    @Test
+    void deletedUserLeavesFriendGraph() throws Exception {
+        User first = userStorage.create(user(1));
+        User common = userStorage.create(user(2));
+        User other = userStorage.create(user(3));
+        userStorage.addFriend(first.getId(), common.getId());
+        userStorage.addFriend(other.getId(), common.getId());
+
+        userStorage.deleteUser(common.getId());
+
+        assertFalse(userStorage.existsUser(common.getId()));
+        assertEquals(0, friendRows(first.getId()));
+        assertEquals(List.of(), userStorage.findMutualFriends(first.getId(), other.getId()));
+    }
+
+    @Test
+    void concurrentIdenticalFriendRequestsInsertOnce() throws Exception {
+        User first = userStorage.create(user(1));
+        List<User> friends = new ArrayList<>();
+        for (int i = 2; i <= 21; i++) {
+            friends.add(userStorage.create(user(i)));
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            for (User friend : friends) {
+                CyclicBarrier barrier = new CyclicBarrier(8);
+                List<Future<?>> requests = new ArrayList<>();
+                for (int i = 0; i < 8; i++) {
+                    requests.add(executor.submit(() -> {
+                        barrier.await();
+                        // как в @Transactional addFriend за прокси Spring
+                        return transactionTemplate.execute(status -> {
+                            try {
+                                userStorage.addFriend(first.getId(), friend.getId());
+                            } catch (Exception e) {
+                                throw new IllegalStateException(e);
+                            }
+                            return null;
+                        });
+                    }));
+                }
+                for (Future<?> request : requests) {
+                    request.get(10, TimeUnit.SECONDS);
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(friends.size(), friendRows(first.getId()));
+        assertEquals(friends.size(), friendIds(first.getId()).size());
+    }
+
+    private int friendRows(long userId) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM friends WHERE user_id = ?", Integer.class, userId);
+    }
+
+    private List<Long> friendIds(long userId) throws Exception {
+        return userStorage.findAllFriends(userId).stream().map(User::getId).toList();
+    }
+
+    private User user(int n) {
+        return User.builder()
+                .email("user" + n + "@mail.ru")
+                .login("user" + n)
+                .name("User " + n)
+                .birthday(LocalDate.of(1990, 1, 1))
+                .build();
+    }
+}
@@ -0,0 +1,58 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.yandex.practicum.filmorate.jdbc.DataSourceRoute;
+
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+public class NdjsonStreamsTest {
+    private final NdjsonStreams streams = new NdjsonStreams(new ObjectMapper());
+    private final List<DataSourceRoute> routes = new CopyOnWriteArrayList<>();
+
+    @AfterEach
+    void afterEach() {
+        DataSourceRoute.pinToPrimary(false);
+    }
+
+    @Test
+    void asyncBodyKeepsPrimaryPinOfRequest() throws Exception {
+        DataSourceRoute.pinToPrimary(true);
+        StreamingResponseBody pinned = streams.<Integer>stream(this::readFromReplica).getBody();
+        DataSourceRoute.pinToPrimary(false);
+        StreamingResponseBody unpinned = streams.<Integer>stream(this::readFromReplica).getBody();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CompletableFuture.runAsync(() -> {
+            try {
+                pinned.writeTo(out);
+                assertFalse(DataSourceRoute.isPinnedToPrimary());
+                unpinned.writeTo(out);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }).get();
+
+        assertEquals(List.of(DataSourceRoute.PRIMARY, DataSourceRoute.REPLICA), routes);
+        assertEquals("1\n1\n", out.toString());
+    }
+
+    private void readFromReplica(Consumer<Integer> consumer) {
+        DataSourceRoute previous = DataSourceRoute.use(DataSourceRoute.REPLICA);
+        try {
+            routes.add(DataSourceRoute.current());
+        } finally {
+            DataSourceRoute.use(previous);
+        }
+        consumer.accept(1);
+    }
+}
@@ -0,0 +1,104 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.TestDatabase;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.storage.cache.CachedGenreStorage;
+import ru.yandex.practicum.filmorate.storage.dao.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.dao.UserDbStorage;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class PopularFilmsCacheTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private FilmDbStorage filmStorage;
+    private FilmService filmService;
+    private Film film;
+
+    @BeforeEach
+    void beforeEach() throws Exception {
+        TestDatabase database = new TestDatabase().withUsers(1);
+        UserDbStorage userStorage = database.userStorage();
+        CachedGenreStorage genreStorage = database.genreStorage();
+        filmStorage = new FilmDbStorage(database.jdbcTemplate(), userStorage, genreStorage);
+        filmStorage.init();
+        filmService = new FilmService(filmStorage, userStorage, database.mpaStorage(), genreStorage,
+                Validation.buildDefaultValidatorFactory().getValidator());
+        meterRegistry = new SimpleMeterRegistry();
+        film = filmStorage.create(Film.builder()
+                .name("Film")
+                .description("description")
+                .releaseDate(LocalDate.of(2000, 1, 1))
+                .duration(100)
+                .mpa(new Mpa(1, "G"))
+                .build());
+    }
+
+    @Test
+    void entryIsReplacedWhenCatalogVersionChanges() throws Exception {
+        PopularFilmsCache cache = cache(0);
+
+        PopularFilmsCache.Entry first = cache.get(10, null);
+        assertSame(first, cache.get(10, null));
+
+        filmStorage.addLike(film.getId(), 1L);
+        PopularFilmsCache.Entry second = cache.get(10, null);
+
+        assertNotSame(first, second);
+        assertFalse(Arrays.equals(first.version(), second.version()));
+        assertArrayEquals(filmService.popularVersion(null), second.version());
+        assertEquals(1, count("hit"));
+        assertEquals(2, count("miss"));
+    }
+
+    @Test
+    void staleEntryIsServedOnlyWithinMaxStale() throws Exception {
+        PopularFilmsCache tolerant = cache(60_000);
+        PopularFilmsCache.Entry cached = tolerant.get(10, null);
+        filmStorage.addLike(film.getId(), 1L);
+
+        assertSame(cached, tolerant.get(10, null));
+
+        PopularFilmsCache strict = cache(1);
+        PopularFilmsCache.Entry expiring = strict.get(10, null);
+        filmStorage.deleteLike(film.getId(), 1L);
+        Thread.sleep(5);
+
+        assertNotSame(expiring, strict.get(10, null));
+    }
+
+    @Test
+    void onlyBoundedKeysAreCached() throws Exception {
+        PopularFilmsCache cache = cache(0);
+
+        assertSame(cache.get(10, Duration.ofDays(1)), cache.get(10, Duration.ofDays(1)));
+        assertNotSame(cache.get(10, Duration.ofHours(5)), cache.get(10, Duration.ofHours(5)));
+        assertNotSame(cache.get(101, null), cache.get(101, null));
+        assertEquals(1, count("hit"));
+        assertEquals(5, count("miss"));
+    }
+
+    private PopularFilmsCache cache(long maxStaleMs) {
+        return new PopularFilmsCache(filmService, new ObjectMapper().findAndRegisterModules(), meterRegistry,
+                maxStaleMs, 100);
+    }
+
+    private double count(String result) {
+        return meterRegistry.get("filmorate.popular.cache").tag("result", result).counter().count();
+    }
+}